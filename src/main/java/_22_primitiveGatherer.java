@@ -0,0 +1,486 @@
+// A Gatherer<Integer, ?, Integer> boxes every element pushed to the downstream,
+// so like IntStream vs Stream<Integer>, we need a primitive version of the gatherer API
+// with primitive integrators and primitive downstreams.
+
+interface IntGatherer<A> {
+  @FunctionalInterface
+  interface Downstream {
+    boolean push(int element);
+  }
+
+  @FunctionalInterface
+  interface Integrator<A> {
+    boolean integrate(A state, int element, Downstream downstream);
+
+    static <A> Greedy<A> ofGreedy(Greedy<A> greedy) {
+      return greedy;
+    }
+
+    @FunctionalInterface
+    interface Greedy<A> extends Integrator<A> {}
+  }
+
+  default Supplier<A> initializer() {
+    return () -> null;
+  }
+  Integrator<A> integrator();
+  default BiConsumer<A, Downstream> finisher() {
+    return (_, _) -> {};
+  }
+
+  static IntGatherer<Void> of(Integrator<Void> integrator) {
+    return of(() -> null, integrator, (_, _) -> {});
+  }
+
+  static <A> IntGatherer<A> of(Supplier<A> initializer, Integrator<A> integrator, BiConsumer<A, Downstream> finisher) {
+    Objects.requireNonNull(initializer);
+    Objects.requireNonNull(integrator);
+    Objects.requireNonNull(finisher);
+    record IntGathererImpl<A>(Supplier<A> initializer, Integrator<A> integrator, BiConsumer<A, Downstream> finisher)
+        implements IntGatherer<A> {}
+    return new IntGathererImpl<>(initializer, integrator, finisher);
+  }
+}
+
+interface LongGatherer<A> {
+  @FunctionalInterface
+  interface Downstream {
+    boolean push(long element);
+  }
+
+  @FunctionalInterface
+  interface Integrator<A> {
+    boolean integrate(A state, long element, Downstream downstream);
+
+    static <A> Greedy<A> ofGreedy(Greedy<A> greedy) {
+      return greedy;
+    }
+
+    @FunctionalInterface
+    interface Greedy<A> extends Integrator<A> {}
+  }
+
+  default Supplier<A> initializer() {
+    return () -> null;
+  }
+  Integrator<A> integrator();
+  default BiConsumer<A, Downstream> finisher() {
+    return (_, _) -> {};
+  }
+
+  static LongGatherer<Void> of(Integrator<Void> integrator) {
+    return of(() -> null, integrator, (_, _) -> {});
+  }
+
+  static <A> LongGatherer<A> of(Supplier<A> initializer, Integrator<A> integrator, BiConsumer<A, Downstream> finisher) {
+    Objects.requireNonNull(initializer);
+    Objects.requireNonNull(integrator);
+    Objects.requireNonNull(finisher);
+    record LongGathererImpl<A>(Supplier<A> initializer, Integrator<A> integrator, BiConsumer<A, Downstream> finisher)
+        implements LongGatherer<A> {}
+    return new LongGathererImpl<>(initializer, integrator, finisher);
+  }
+}
+
+interface DoubleGatherer<A> {
+  @FunctionalInterface
+  interface Downstream {
+    boolean push(double element);
+  }
+
+  @FunctionalInterface
+  interface Integrator<A> {
+    boolean integrate(A state, double element, Downstream downstream);
+
+    static <A> Greedy<A> ofGreedy(Greedy<A> greedy) {
+      return greedy;
+    }
+
+    @FunctionalInterface
+    interface Greedy<A> extends Integrator<A> {}
+  }
+
+  default Supplier<A> initializer() {
+    return () -> null;
+  }
+  Integrator<A> integrator();
+  default BiConsumer<A, Downstream> finisher() {
+    return (_, _) -> {};
+  }
+
+  static DoubleGatherer<Void> of(Integrator<Void> integrator) {
+    return of(() -> null, integrator, (_, _) -> {});
+  }
+
+  static <A> DoubleGatherer<A> of(Supplier<A> initializer, Integrator<A> integrator, BiConsumer<A, Downstream> finisher) {
+    Objects.requireNonNull(initializer);
+    Objects.requireNonNull(integrator);
+    Objects.requireNonNull(finisher);
+    record DoubleGathererImpl<A>(Supplier<A> initializer, Integrator<A> integrator, BiConsumer<A, Downstream> finisher)
+        implements DoubleGatherer<A> {}
+    return new DoubleGathererImpl<>(initializer, integrator, finisher);
+  }
+}
+
+// IntStream.gather() does not exist, so we wrap the spliterator of the stream.
+// The elements are pushed directly to the terminal operation by forEachRemaining(),
+// the buffer is only used by tryAdvance() (short-circuit terminal operations)
+<A> IntStream gather(IntStream stream, IntGatherer<A> gatherer) {
+  var spliterator = stream.spliterator();
+  var initializer = gatherer.initializer();
+  var integrator = gatherer.integrator();
+  var finisher = gatherer.finisher();
+  var greedy = integrator instanceof IntGatherer.Integrator.Greedy<A>;
+  class GatheringSpliterator implements Spliterator.OfInt, IntConsumer, IntGatherer.Downstream {
+    private final A state = initializer.get();
+    private IntConsumer action;
+    private boolean stop, done;
+    private int[] buffer = new int[16];
+    private int start, end;
+
+    @Override
+    public boolean push(int element) {
+      if (action != null) {
+        action.accept(element);
+        return true;
+      }
+      if (end == buffer.length) {
+        buffer = Arrays.copyOf(buffer, end << 1);
+      }
+      buffer[end++] = element;
+      return true;
+    }
+
+    @Override
+    public void accept(int element) {
+      if (!integrator.integrate(state, element, this)) {
+        stop = true;
+      }
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+      while (start == end) {
+        if (done) {
+          return false;
+        }
+        start = end = 0;
+        if (stop || !spliterator.tryAdvance((IntConsumer) this)) {
+          done = true;
+          finisher.accept(state, this);
+        }
+      }
+      action.accept(buffer[start++]);
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+      while (start < end) {
+        action.accept(buffer[start++]);
+      }
+      if (done) {
+        return;
+      }
+      this.action = action;
+      if (greedy) {
+        spliterator.forEachRemaining((IntConsumer) this);
+      } else {
+        while (!stop && spliterator.tryAdvance((IntConsumer) this)) {
+          // empty
+        }
+      }
+      done = true;
+      finisher.accept(state, this);
+    }
+
+    @Override
+    public OfInt trySplit() {
+      return null;  // inherently sequential
+    }
+    @Override
+    public long estimateSize() {
+      return Long.MAX_VALUE;
+    }
+    @Override
+    public int characteristics() {
+      return spliterator.characteristics() & ORDERED;
+    }
+  }
+  return StreamSupport.intStream(new GatheringSpliterator(), false).onClose(stream::close);
+}
+
+<A> LongStream gather(LongStream stream, LongGatherer<A> gatherer) {
+  var spliterator = stream.spliterator();
+  var initializer = gatherer.initializer();
+  var integrator = gatherer.integrator();
+  var finisher = gatherer.finisher();
+  var greedy = integrator instanceof LongGatherer.Integrator.Greedy<A>;
+  class GatheringSpliterator implements Spliterator.OfLong, LongConsumer, LongGatherer.Downstream {
+    private final A state = initializer.get();
+    private LongConsumer action;
+    private boolean stop, done;
+    private long[] buffer = new long[16];
+    private int start, end;
+
+    @Override
+    public boolean push(long element) {
+      if (action != null) {
+        action.accept(element);
+        return true;
+      }
+      if (end == buffer.length) {
+        buffer = Arrays.copyOf(buffer, end << 1);
+      }
+      buffer[end++] = element;
+      return true;
+    }
+
+    @Override
+    public void accept(long element) {
+      if (!integrator.integrate(state, element, this)) {
+        stop = true;
+      }
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+      while (start == end) {
+        if (done) {
+          return false;
+        }
+        start = end = 0;
+        if (stop || !spliterator.tryAdvance((LongConsumer) this)) {
+          done = true;
+          finisher.accept(state, this);
+        }
+      }
+      action.accept(buffer[start++]);
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+      while (start < end) {
+        action.accept(buffer[start++]);
+      }
+      if (done) {
+        return;
+      }
+      this.action = action;
+      if (greedy) {
+        spliterator.forEachRemaining((LongConsumer) this);
+      } else {
+        while (!stop && spliterator.tryAdvance((LongConsumer) this)) {
+          // empty
+        }
+      }
+      done = true;
+      finisher.accept(state, this);
+    }
+
+    @Override
+    public OfLong trySplit() {
+      return null;  // inherently sequential
+    }
+    @Override
+    public long estimateSize() {
+      return Long.MAX_VALUE;
+    }
+    @Override
+    public int characteristics() {
+      return spliterator.characteristics() & ORDERED;
+    }
+  }
+  return StreamSupport.longStream(new GatheringSpliterator(), false).onClose(stream::close);
+}
+
+<A> DoubleStream gather(DoubleStream stream, DoubleGatherer<A> gatherer) {
+  var spliterator = stream.spliterator();
+  var initializer = gatherer.initializer();
+  var integrator = gatherer.integrator();
+  var finisher = gatherer.finisher();
+  var greedy = integrator instanceof DoubleGatherer.Integrator.Greedy<A>;
+  class GatheringSpliterator implements Spliterator.OfDouble, DoubleConsumer, DoubleGatherer.Downstream {
+    private final A state = initializer.get();
+    private DoubleConsumer action;
+    private boolean stop, done;
+    private double[] buffer = new double[16];
+    private int start, end;
+
+    @Override
+    public boolean push(double element) {
+      if (action != null) {
+        action.accept(element);
+        return true;
+      }
+      if (end == buffer.length) {
+        buffer = Arrays.copyOf(buffer, end << 1);
+      }
+      buffer[end++] = element;
+      return true;
+    }
+
+    @Override
+    public void accept(double element) {
+      if (!integrator.integrate(state, element, this)) {
+        stop = true;
+      }
+    }
+
+    @Override
+    public boolean tryAdvance(DoubleConsumer action) {
+      while (start == end) {
+        if (done) {
+          return false;
+        }
+        start = end = 0;
+        if (stop || !spliterator.tryAdvance((DoubleConsumer) this)) {
+          done = true;
+          finisher.accept(state, this);
+        }
+      }
+      action.accept(buffer[start++]);
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(DoubleConsumer action) {
+      while (start < end) {
+        action.accept(buffer[start++]);
+      }
+      if (done) {
+        return;
+      }
+      this.action = action;
+      if (greedy) {
+        spliterator.forEachRemaining((DoubleConsumer) this);
+      } else {
+        while (!stop && spliterator.tryAdvance((DoubleConsumer) this)) {
+          // empty
+        }
+      }
+      done = true;
+      finisher.accept(state, this);
+    }
+
+    @Override
+    public OfDouble trySplit() {
+      return null;  // inherently sequential
+    }
+    @Override
+    public long estimateSize() {
+      return Long.MAX_VALUE;
+    }
+    @Override
+    public int characteristics() {
+      return spliterator.characteristics() & ORDERED;
+    }
+  }
+  return StreamSupport.doubleStream(new GatheringSpliterator(), false).onClose(stream::close);
+}
+
+// from an IntGatherer to a Gatherer, to be used in the middle of a Stream (it boxes !)
+<A> Gatherer<Integer, A, Integer> boxed(IntGatherer<A> gatherer) {
+  var integrator = gatherer.integrator();
+  var finisher = gatherer.finisher();
+  Gatherer.Integrator<A, Integer, Integer> boxedIntegrator = integrator instanceof IntGatherer.Integrator.Greedy<A>
+      ? Gatherer.Integrator.ofGreedy((state, element, downstream) -> integrator.integrate(state, element, downstream::push))
+      : (state, element, downstream) -> integrator.integrate(state, element, downstream::push);
+  return Gatherer.ofSequential(
+      gatherer.initializer(),
+      boxedIntegrator,
+      (state, downstream) -> finisher.accept(state, downstream::push));
+}
+
+IntGatherer<?> map(IntUnaryOperator mapper) {
+  return IntGatherer.of(IntGatherer.Integrator.ofGreedy((_, element, downstream) -> {
+    return downstream.push(mapper.applyAsInt(element));
+  }));
+}
+
+IntGatherer<?> filter(IntPredicate predicate) {
+  return IntGatherer.of(IntGatherer.Integrator.ofGreedy((_, element, downstream) -> {
+    if (predicate.test(element)) {
+      return downstream.push(element);
+    }
+    return true;
+  }));
+}
+
+IntGatherer<?> takeWhile(IntPredicate predicate) {
+  return IntGatherer.of((_, element, downstream) -> {
+    if (predicate.test(element)) {
+      return downstream.push(element);
+    }
+    return false;
+  });
+}
+
+IntGatherer<?> fold(int initial, IntBinaryOperator operator) {
+  return IntGatherer.of(
+      () -> new Object() { int value = initial; },
+      IntGatherer.Integrator.ofGreedy((state, element, _) -> {
+        state.value = operator.applyAsInt(state.value, element);
+        return true;
+      }),
+      (state, downstream) -> {
+        downstream.push(state.value);
+      });
+}
+
+LongGatherer<?> runningSum() {
+  return LongGatherer.of(
+      () -> new Object() { long sum; },
+      LongGatherer.Integrator.ofGreedy((state, element, downstream) -> {
+        return downstream.push(state.sum += element);
+      }),
+      (_, _) -> {});
+}
+
+DoubleGatherer<?> scale(double factor) {
+  return DoubleGatherer.of(DoubleGatherer.Integrator.ofGreedy((_, element, downstream) -> {
+    return downstream.push(element * factor);
+  }));
+}
+
+void main() {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      item12
+      """;
+
+  var lengths = gather(text.lines().mapToInt(String::length), map(v -> v * 10))
+      .boxed()
+      .toList();
+  System.out.println(lengths);
+
+  var filtered = gather(gather(text.lines().mapToInt(String::length), filter(v -> v > 2)), takeWhile(v -> v < 6))
+      .boxed()
+      .toList();
+  System.out.println(filtered);
+
+  var sum = gather(text.lines().mapToInt(String::length), fold(0, Integer::sum))
+      .findFirst().orElseThrow();
+  System.out.println(sum);
+
+  var runningSum = gather(LongStream.rangeClosed(1, 5), runningSum())
+      .boxed()
+      .toList();
+  System.out.println(runningSum);
+
+  var scaled = gather(DoubleStream.of(1.0, 2.5), scale(2))
+      .boxed()
+      .toList();
+  System.out.println(scaled);
+
+  var boxed = text.lines()
+      .map(String::length)
+      .gather(boxed(map(v -> v + 1)))
+      .toList();
+  System.out.println(boxed);
+  System.out.println(boxed(map(v -> v + 1)).integrator() instanceof Gatherer.Integrator.Greedy<?, ?, ?>);
+}
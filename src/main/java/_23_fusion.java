@@ -0,0 +1,108 @@
+// A chain of map/filter/takeWhile gatherers pays one Downstream.push() per stage,
+// here the stateless operations are represented by a Step, and andThen() composes the steps
+// so a chain of stateless gatherers is fused into one integrator.
+// Note: stream.gather(a).gather(b) is implemented by the JDK as stream.gather(a.andThen(b)).
+
+@FunctionalInterface
+interface Step {
+  Object SKIP = new Object();   // the element is filtered out
+  Object STOP = new Object();   // short-circuit
+
+  Object apply(Object value);
+
+  default Step andThen(Step next) {
+    return value -> {
+      var result = apply(value);
+      if (result == SKIP || result == STOP) {
+        return result;
+      }
+      return next.apply(result);
+    };
+  }
+}
+
+record FusedGatherer<T, R>(Step step, boolean shortCircuit) implements Gatherer<T, Void, R> {
+  @Override
+  @SuppressWarnings("unchecked")
+  public Integrator<Void, T, R> integrator() {
+    if (shortCircuit) {
+      return Integrator.of((_, element, downstream) -> {
+        var result = step.apply(element);
+        if (result == Step.SKIP) {
+          return true;
+        }
+        if (result == Step.STOP) {
+          return false;
+        }
+        return downstream.push((R) result);
+      });
+    }
+    return Integrator.ofGreedy((_, element, downstream) -> {
+      var result = step.apply(element);
+      if (result == Step.SKIP) {
+        return true;
+      }
+      return downstream.push((R) result);
+    });
+  }
+
+  @Override
+  public BinaryOperator<Void> combiner() {
+    if (shortCircuit) {
+      return Gatherer.defaultCombiner();  // takeWhile is sequential
+    }
+    return (_, _) -> null;
+  }
+
+  @Override
+  public <RR> Gatherer<T, ?, RR> andThen(Gatherer<? super R, ?, ? extends RR> that) {
+    if (that instanceof FusedGatherer<?, ?> fused) {
+      return new FusedGatherer<>(step.andThen(fused.step), shortCircuit || fused.shortCircuit);
+    }
+    return Gatherer.super.andThen(that);
+  }
+}
+
+@SuppressWarnings("unchecked")
+<T, R> Gatherer<T, ?, R> map(Function<? super T, ? extends R> mapper) {
+  Objects.requireNonNull(mapper);
+  return new FusedGatherer<>(value -> mapper.apply((T) value), false);
+}
+
+@SuppressWarnings("unchecked")
+<T> Gatherer<T, ?, T> filter(Predicate<? super T> predicate) {
+  Objects.requireNonNull(predicate);
+  return new FusedGatherer<>(value -> predicate.test((T) value) ? value : Step.SKIP, false);
+}
+
+@SuppressWarnings("unchecked")
+<T> Gatherer<T, ?, T> takeWhile(Predicate<? super T> predicate) {
+  Objects.requireNonNull(predicate);
+  return new FusedGatherer<>(value -> predicate.test((T) value) ? value : Step.STOP, true);
+}
+
+void main() {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      item12
+      """;
+
+  var gatherer = this.<String>takeWhile(s -> s.startsWith("item"))
+      .andThen(filter(s -> s.endsWith("1")))
+      .andThen(map(String::length));
+  System.out.println(gatherer.getClass().getSimpleName());
+
+  var result = text.lines()
+      .gather(gatherer)
+      .toList();
+  System.out.println(result);
+
+  var result2 = text.lines()
+      .parallel()
+      .gather(this.<String>filter(s -> s.endsWith("1")).andThen(map(String::length)))
+      .toList();
+  System.out.println(result2);
+}
@@ -0,0 +1,125 @@
+// _12_windowFixed is sequential because the window boundaries depend on the position of the element
+// in the whole stream, and a split of a parallel stream does not know its starting offset.
+// So each element comes with its position (indexed() on a random access list, like _28_findIndex_parallel),
+// a split cuts the full windows itself and only keeps apart the beginning of the window started
+// by the split on its left (head) and its last incomplete window (tail),
+// the combiner stitches the tail of the left split with the head of the right split.
+// The windows are pushed in encounter order:
+// - the split that starts at the position 0 has nothing on its left, so it pushes its windows directly,
+//   on a sequential stream the windows are pushed as soon as they are full,
+// - the other splits keep their windows until the finisher, so in parallel the memory is O(n).
+// The positions must start at 0 and be contiguous (no filter() between indexed() and the gatherer).
+
+record Indexed<T>(long index, T element) {}
+
+<T> Stream<Indexed<T>> indexed(List<T> list) {
+  Objects.requireNonNull(list);
+  return IntStream.range(0, list.size()).mapToObj(i -> new Indexed<>(i, list.get(i)));
+}
+
+<T> Gatherer<Indexed<T>, ?, List<T>> windowFixed(int windowSize) {
+  if (windowSize < 1) {
+    throw new IllegalArgumentException("windowSize < 1");
+  }
+  class State {
+    boolean first = true;  // no element seen yet
+    boolean direct;  // the split starts at the position 0, the windows are pushed directly
+    boolean cut;  // a window boundary has been seen
+    ArrayList<T> head = new ArrayList<>();  // the elements before the first boundary
+    ArrayList<List<T>> windows = new ArrayList<>();  // the full windows not pushed yet
+    ArrayList<T> tail = new ArrayList<>(windowSize);  // the elements after the last boundary
+
+    boolean add(List<T> window, Gatherer.Downstream<? super List<T>> downstream) {
+      if (direct) {
+        return downstream.push(window);
+      }
+      windows.add(window);
+      return true;
+    }
+  }
+  return Gatherer.of(
+      State::new,
+      (state, indexed, downstream) -> {
+        var boundary = indexed.index() % windowSize == 0;
+        if (state.first) {
+          state.first = false;
+          state.direct = indexed.index() == 0;
+        }
+        if (!state.cut && !boundary) {
+          state.head.add(indexed.element());
+          return true;
+        }
+        state.cut = true;
+        state.tail.add(indexed.element());
+        if (state.tail.size() == windowSize) {
+          var window = state.tail;
+          state.tail = new ArrayList<>(windowSize);
+          return state.add(window, downstream);
+        }
+        return true;
+      },
+      (s1, s2) -> {
+        if (!s1.cut) {  // no boundary on the left, the head of the left is the beginning of the head of the right
+          s1.head.addAll(s2.head);
+          s2.head = s1.head;
+          s2.first &= s1.first;
+          return s2;
+        }
+        s1.tail.addAll(s2.head);
+        if (s2.cut || s1.tail.size() == windowSize) {  // the window of the tail is complete
+          if (!s1.tail.isEmpty()) {
+            s1.windows.add(s1.tail);
+          }
+          s1.tail = new ArrayList<>(windowSize);
+        }
+        if (s2.cut) {
+          s1.windows.addAll(s2.windows);
+          s1.tail = s2.tail;
+        }
+        return s1;
+      },
+      (state, downstream) -> {
+        if (!state.head.isEmpty() && !downstream.push(state.head)) {  // only if the positions do not start at 0
+          return;
+        }
+        for (var window : state.windows) {
+          if (!downstream.push(window)) {
+            return;
+          }
+        }
+        if (!state.tail.isEmpty()) {
+          downstream.push(state.tail);
+        }
+      }
+  );
+}
+
+void main() {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      item12
+      """;
+
+  var result = indexed(text.lines().toList())
+      .parallel()
+      .gather(windowFixed(2))
+      .toList();
+  System.out.println(result);
+
+  var list = IntStream.range(0, 1_000_000).boxed().toList();
+  var windows = indexed(list).parallel()
+      .map(indexed -> new Indexed<>(indexed.index(), indexed.element() * 2))
+      .gather(windowFixed(3))
+      .toList();
+  System.out.println(windows.equals(list.stream().map(v -> v * 2).gather(Gatherers.windowFixed(3)).toList()));
+
+  // on a sequential stream, the windows are pushed as soon as they are full
+  System.out.println(indexed(list)
+      .peek(indexed -> { if (indexed.index() == 10) throw new IllegalStateException("too far"); })
+      .gather(windowFixed(3))
+      .limit(3)
+      .toList());
+}
@@ -0,0 +1,116 @@
+record Section(String name, List<String> items) {}
+
+// Unlike windowFixed, the boundaries of windowBy only depend on the content, so each split
+// can close its own sections in parallel.
+// A split keeps the elements before its first header (the orphan prefix), the sections already closed,
+// and the open trailing section. The combiner appends the orphan prefix of the right split to
+// the trailing section of the left split (using the combiner of the collector).
+// The sections are pushed by the finisher to keep the encounter order.
+
+<T, R, R2> Gatherer<T, ?, R2> windowBy(Predicate<? super T> predicate,
+                                       Collector<? super T, ?, ? extends R> collector,
+                                       BiFunction<? super T, ? super R, ? extends R2> mapper) {
+  return _windowBy(predicate, collector, mapper);
+}
+
+<T, A, R, R2> Gatherer<T, ?, R2> _windowBy(Predicate<? super T> predicate,
+                                           Collector<? super T, A, ? extends R> collector,
+                                           BiFunction<? super T, ? super R, ? extends R2> mapper) {
+  Objects.requireNonNull(predicate);
+  Objects.requireNonNull(collector);
+  Objects.requireNonNull(mapper);
+  var supplier = collector.supplier();
+  var accumulator = collector.accumulator();
+  var combiner = collector.combiner();
+  var finisher = collector.finisher();
+  class State {
+    A orphans;
+    final ArrayList<R2> sections = new ArrayList<>();
+    A container;
+    T element;
+
+    void close() {
+      sections.add(mapper.apply(element, finisher.apply(container)));
+    }
+  }
+  return Gatherer.of(
+      State::new,
+      Gatherer.Integrator.ofGreedy((state, element, _) -> {
+        if (predicate.test(element)) {
+          if (state.container != null) {
+            state.close();
+          }
+          state.container = supplier.get();
+          state.element = element;
+          return true;
+        }
+        if (state.container == null) {
+          if (state.orphans == null) {
+            state.orphans = supplier.get();
+          }
+          accumulator.accept(state.orphans, element);
+          return true;
+        }
+        accumulator.accept(state.container, element);
+        return true;
+      }),
+      (s1, s2) -> {
+        if (s2.orphans != null) {
+          if (s1.container != null) {
+            s1.container = combiner.apply(s1.container, s2.orphans);
+          } else {
+            s1.orphans = s1.orphans == null ? s2.orphans : combiner.apply(s1.orphans, s2.orphans);
+          }
+        }
+        if (s2.container != null) {
+          if (s1.container != null) {
+            s1.close();
+          }
+          s1.sections.addAll(s2.sections);
+          s1.container = s2.container;
+          s1.element = s2.element;
+        }
+        return s1;
+      },
+      (state, downstream) -> {
+        if (state.orphans != null) {
+          throw new IllegalStateException("element before the first header");
+        }
+        for (var section : state.sections) {
+          if (!downstream.push(section)) {
+            return;
+          }
+        }
+        if (state.container != null) {
+          downstream.push(mapper.apply(state.element, finisher.apply(state.container)));
+        }
+      }
+  );
+}
+
+void main() {
+  var text = """
+      header
+      item1
+      item2
+      header2
+      item3
+      """;
+
+  var sections = text.lines()
+      .parallel()
+      .gather(windowBy(s -> s.startsWith("header"), Collectors.toList(), Section::new))
+      .toList();
+  System.out.println(sections);
+
+  var lines = IntStream.range(0, 100_000)
+      .mapToObj(i -> i % 100 == 0 ? "header" + i : "item" + i)
+      .toList();
+  var parallelSections = lines.parallelStream()
+      .gather(windowBy(s -> s.startsWith("header"), Collectors.toList(), Section::new))
+      .toList();
+  var sequentialSections = lines.stream()
+      .gather(windowBy(s -> s.startsWith("header"), Collectors.toList(), Section::new))
+      .toList();
+  System.out.println(parallelSections.equals(sequentialSections));
+}
@@ -0,0 +1,134 @@
+// text.lines() or Files.lines() decodes the whole input through a single reader.
+// Here the file is memory-mapped and the spliterator splits it in the middle, at the next newline,
+// so a parallel stream can decode the lines on all cores.
+// Only works with charsets where '\n' is always encoded as a single byte (UTF-8, ASCII, ISO-8859-1),
+// the other charsets (UTF-16 by example) are rejected.
+
+Stream<String> lines(Path path, Charset charset) throws IOException {
+  Objects.requireNonNull(path);
+  Objects.requireNonNull(charset);
+  if (!charset.equals(StandardCharsets.UTF_8) && !charset.equals(StandardCharsets.US_ASCII)
+      && !charset.equals(StandardCharsets.ISO_8859_1)) {
+    throw new IllegalArgumentException("'\\n' may not be encoded as a single byte in " + charset);
+  }
+  class LineSpliterator implements Spliterator<String> {
+    private final MemorySegment segment;
+    private long start;
+    private final long end;
+
+    LineSpliterator(MemorySegment segment, long start, long end) {
+      this.segment = segment;
+      this.start = start;
+      this.end = end;
+    }
+
+    private long indexOfNewline(long from) {
+      for (var i = from; i < end; i++) {
+        if (segment.get(ValueLayout.JAVA_BYTE, i) == '\n') {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+      if (start >= end) {
+        return false;
+      }
+      var newline = indexOfNewline(start);
+      var lineEnd = newline == -1 ? end : newline;
+      if (lineEnd > start && segment.get(ValueLayout.JAVA_BYTE, lineEnd - 1) == '\r') {
+        lineEnd--;
+      }
+      var bytes = segment.asSlice(start, lineEnd - start).toArray(ValueLayout.JAVA_BYTE);
+      start = newline == -1 ? end : newline + 1;
+      action.accept(new String(bytes, charset));
+      return true;
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+      var middle = start + (end - start) / 2;
+      var newline = indexOfNewline(middle);
+      if (newline == -1 || newline + 1 >= end) {
+        return null;
+      }
+      var prefix = new LineSpliterator(segment, start, newline + 1);
+      start = newline + 1;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return end - start;  // in bytes, so an upper bound
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | NONNULL | IMMUTABLE;
+    }
+  }
+  var arena = Arena.ofShared();   // the splits are traversed by different threads
+  try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+    var segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+    return StreamSupport.stream(new LineSpliterator(segment, 0, segment.byteSize()), false)
+        .onClose(arena::close);
+  } catch (IOException | RuntimeException e) {
+    arena.close();
+    throw e;
+  }
+}
+
+<T> Gatherer<T, ?, T> filter(Predicate<? super T> predicate) {
+  return Gatherer.of(Gatherer.Integrator.ofGreedy((_, element, downstream) -> {
+    if (predicate.test(element)) {
+      return downstream.push(element);
+    }
+    return true;
+  }));
+}
+
+<T> Gatherer<T, ?, T> takeWhile(Predicate<? super T> predicate) {
+  return Gatherer.ofSequential((_, element, downstream) -> {
+    if (predicate.test(element)) {
+      return downstream.push(element);
+    }
+    return false;
+  });
+}
+
+void main() throws IOException {
+  var path = Files.createTempFile("lines", ".txt");
+  try {
+    Files.write(path, IntStream.range(0, 100_000).mapToObj(i -> "item" + i).toList());
+
+    try (var lines = lines(path, StandardCharsets.UTF_8)) {
+      var result = lines
+          .gather(takeWhile(s -> !s.equals("item5")))
+          .toList();
+      System.out.println(result);
+    }
+
+    try (var lines = lines(path, StandardCharsets.UTF_8)) {
+      var count = lines
+          .parallel()
+          .gather(filter(s -> s.endsWith("1")))
+          .count();
+      System.out.println(count);
+    }
+
+    try (var lines = lines(path, StandardCharsets.UTF_8);
+         var expected = Files.lines(path)) {
+      System.out.println(lines.parallel().toList().equals(expected.toList()));
+    }
+
+    try (var lines = lines(path, StandardCharsets.UTF_16)) {
+      System.out.println(lines.count());
+    } catch (IllegalArgumentException e) {
+      System.out.println(e.getMessage());
+    }
+  } finally {
+    Files.delete(path);
+  }
+}
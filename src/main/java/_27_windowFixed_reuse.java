@@ -0,0 +1,110 @@
+// _12_windowFixed allocates a new ArrayList for each window.
+// Here the same buffer is reused for all the windows, and pushed as a read-only List,
+// so the downstream stage must consume a window before asking for the next one
+// (i.e. it can not store it, use List.copyOf() for that).
+// If the assertions are enabled (-ea), each push uses a new view that checks that contract.
+
+boolean assertionsEnabled() {
+  var enabled = false;
+  assert enabled = true;
+  return enabled;
+}
+
+<T> Gatherer<T, ?, List<T>> windowFixedReused(int windowSize) {
+  if (windowSize < 1) {
+    throw new IllegalArgumentException("windowSize < 1");
+  }
+  var checked = assertionsEnabled();
+  class Buffer extends AbstractList<T> implements RandomAccess {
+    private final Object[] elements = new Object[windowSize];
+    private int size;
+    private int generation;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+      Objects.checkIndex(index, size);
+      return (T) elements[index];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    // a view that fails if the buffer has been reused
+    class View extends AbstractList<T> implements RandomAccess {
+      private final int generation = Buffer.this.generation;
+
+      private Buffer buffer() {
+        if (Buffer.this.generation != generation) {
+          throw new IllegalStateException("window used after the next window was pushed");
+        }
+        return Buffer.this;
+      }
+
+      @Override
+      public T get(int index) {
+        return buffer().get(index);
+      }
+
+      @Override
+      public int size() {
+        return buffer().size();
+      }
+    }
+
+    boolean push(Gatherer.Downstream<? super List<T>> downstream) {
+      var result = downstream.push(checked ? new View() : this);
+      size = 0;
+      generation++;
+      return result;
+    }
+  }
+  return Gatherer.ofSequential(
+      Buffer::new,
+      Gatherer.Integrator.ofGreedy((buffer, element, downstream) -> {
+        buffer.elements[buffer.size++] = element;
+        if (buffer.size == windowSize) {
+          return buffer.push(downstream);
+        }
+        return true;
+      }),
+      (buffer, downstream) -> {
+        if (buffer.size != 0) {
+          buffer.push(downstream);
+        }
+        Arrays.fill(buffer.elements, null);
+      }
+  );
+}
+
+void main() {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      item12
+      """;
+
+  text.lines()
+      .gather(windowFixedReused(2))
+      .forEach(System.out::println);
+
+  var result = text.lines()
+      .gather(windowFixedReused(2))
+      .map(List::copyOf)   // copy if the window has to be stored
+      .toList();
+  System.out.println(result);
+
+  // wrong, all the windows share the same buffer, fails if the assertions are enabled
+  var windows = text.lines()
+      .gather(windowFixedReused(2))
+      .toList();
+  try {
+    System.out.println(windows);
+  } catch (IllegalStateException e) {
+    System.out.println(e.getMessage());
+  }
+}
@@ -0,0 +1,102 @@
+// _18_findIndex is sequential because the index is computed by a counter.
+// In parallel, a split does not know its starting offset, so the state records the number of elements
+// of the split and the index of the match relative to the start of the split,
+// and the combiner fixes the index of the right split by adding the count of the left split.
+
+<T> Gatherer<T, ?, Integer> findIndex(Predicate<? super T> predicate) {
+  Objects.requireNonNull(predicate);
+  class State {
+    int count;
+    int index = -1;
+  }
+  return Gatherer.of(
+      State::new,
+      (state, element, _) -> {
+        if (predicate.test(element)) {
+          state.index = state.count;
+          return false;  // the count is not needed anymore, the index of the left split wins
+        }
+        state.count++;
+        return true;
+      },
+      (s1, s2) -> {
+        if (s1.index == -1) {
+          s1.index = s2.index == -1 ? -1 : s1.count + s2.index;
+          s1.count += s2.count;
+        }
+        return s1;
+      },
+      (state, downstream) -> {
+        if (state.index != -1) {
+          downstream.push(state.index);
+        }
+      });
+}
+
+<T> Gatherer<T, ?, Integer> findLastIndex(Predicate<? super T> predicate) {
+  Objects.requireNonNull(predicate);
+  class State {
+    int count;
+    int index = -1;
+  }
+  return Gatherer.of(
+      State::new,
+      Gatherer.Integrator.ofGreedy((state, element, _) -> {
+        if (predicate.test(element)) {
+          state.index = state.count;
+        }
+        state.count++;
+        return true;
+      }),
+      (s1, s2) -> {
+        if (s2.index != -1) {
+          s1.index = s1.count + s2.index;
+        }
+        s1.count += s2.count;
+        return s1;
+      },
+      (state, downstream) -> {
+        if (state.index != -1) {
+          downstream.push(state.index);
+        }
+      });
+}
+
+// The splits of findIndex() can not stop when another split has found a match,
+// because they do not know if they are before or after that match.
+// With a random access list, the stream can be a stream of indexes, so each split knows its position,
+// and all the splits share the index of the first match found so far.
+<T> int findIndex(List<? extends T> list, Predicate<? super T> predicate) {
+  Objects.requireNonNull(predicate);
+  var first = new AtomicInteger(Integer.MAX_VALUE);
+  IntStream.range(0, list.size())
+      .parallel()
+      .boxed()
+      .gather(Gatherer.<Integer, Integer>of((_, index, _) -> {
+        if (index > first.get()) {
+          return false;  // there is already a match before
+        }
+        if (predicate.test(list.get(index))) {
+          first.accumulateAndGet(index, Math::min);
+          return false;
+        }
+        return true;
+      }))
+      .forEach(_ -> {});
+  var index = first.get();
+  return index == Integer.MAX_VALUE ? -1 : index;
+}
+
+void main() {
+  var list = java.util.List.of("foo", "bar", "baz");
+  var findIndex = list.parallelStream().gather(findIndex(s -> s.contains("a"))).findFirst().orElse(-1);
+  System.out.println(findIndex);
+  var findLastIndex = list.parallelStream().gather(findLastIndex(s -> s.contains("a"))).findFirst().orElse(-1);
+  System.out.println(findLastIndex);
+
+  var integers = IntStream.range(0, 1_000_000).boxed().toList();
+  System.out.println(integers.parallelStream().gather(findIndex(v -> v % 1_000 == 999)).findFirst().orElse(-1));
+  System.out.println(integers.parallelStream().gather(findLastIndex(v -> v % 1_000 == 999)).findFirst().orElse(-1));
+  System.out.println(findIndex(integers, v -> v % 1_000 == 999));
+  System.out.println(findIndex(integers, v -> v < 0));
+}
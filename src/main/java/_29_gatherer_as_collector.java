@@ -0,0 +1,90 @@
+// _10_collector_as_gatherer.asCollector() only works with gatherers that push in the finisher (like fold),
+// here the elements pushed by the gatherer are accumulated into a downstream collector,
+// so any gatherer can be used in groupingBy() or partitioningBy().
+// The state of the collector is also the downstream of the gatherer, so pushing does not allocate.
+// If the gatherer short-circuits, the following elements are ignored.
+// In parallel, the gatherer must not be sequential (its combiner is used).
+
+<E, T, R> Collector<E, ?, R> asCollector(Gatherer<? super E, ?, ? extends T> gatherer,
+                                         Collector<? super T, ?, ? extends R> collector) {
+  return _asCollector(gatherer, collector);
+}
+
+<E, A, T, B, R> Collector<E, ?, R> _asCollector(Gatherer<? super E, A, T> gatherer,
+                                                Collector<? super T, B, ? extends R> collector) {
+  Objects.requireNonNull(gatherer);
+  Objects.requireNonNull(collector);
+  var initializer = gatherer.initializer();
+  var integrator = gatherer.integrator();
+  var combiner = gatherer.combiner();
+  var finisher = gatherer.finisher();
+  var supplier = collector.supplier();
+  var accumulator = collector.accumulator();
+  var collectorCombiner = collector.combiner();
+  var collectorFinisher = collector.finisher();
+  class State implements Gatherer.Downstream<T> {
+    A state = initializer.get();
+    B container = supplier.get();
+    boolean stopped;
+
+    @Override
+    public boolean push(T element) {
+      accumulator.accept(container, element);
+      return true;
+    }
+  }
+  return Collector.of(
+      State::new,
+      (state, element) -> {
+        if (!state.stopped && !integrator.integrate(state.state, element, state)) {
+          state.stopped = true;
+        }
+      },
+      (s1, s2) -> {
+        if (s1.stopped) {
+          return s1;  // the elements of the right split come after the short-circuit
+        }
+        s1.state = combiner.apply(s1.state, s2.state);
+        s1.container = collectorCombiner.apply(s1.container, s2.container);
+        s1.stopped = s2.stopped;
+        return s1;
+      },
+      state -> {
+        finisher.accept(state.state, state);
+        return collectorFinisher.apply(state.container);
+      });
+}
+
+<T, R> Gatherer<T, ?, R> map(Function<? super T, ? extends R> mapper) {
+  return Gatherer.of(Gatherer.Integrator.ofGreedy((_, element, downstream) -> {
+    return downstream.push(mapper.apply(element));
+  }));
+}
+
+<T> Gatherer<T, ?, T> limit(int maxSize) {
+  return Gatherer.ofSequential(
+      () -> new Object() { int counter; },
+      (state, element, downstream) -> {
+        if (state.counter++ == maxSize) {
+          return false;
+        }
+        return downstream.push(element);
+      }
+  );
+}
+
+void main() {
+  var words = List.of("foo", "bar", "baz", "whizz", "fizz", "buzz", "qux");
+
+  var windows = words.stream()
+      .collect(Collectors.groupingBy(String::length, asCollector(Gatherers.windowFixed(2), Collectors.toList())));
+  System.out.println(windows);
+
+  var firsts = words.stream()
+      .collect(Collectors.partitioningBy(s -> s.contains("z"), asCollector(limit(2), Collectors.joining(", "))));
+  System.out.println(firsts);
+
+  var counts = words.parallelStream()
+      .collect(Collectors.groupingBy(s -> s.charAt(0), asCollector(map(String::length), Collectors.summingInt(v -> v))));
+  System.out.println(counts);
+}
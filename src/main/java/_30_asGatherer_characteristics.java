@@ -0,0 +1,77 @@
+// _10_collector_as_gatherer.asGatherer() ignores the characteristics of the collector.
+// - if the collector is CONCURRENT and UNORDERED, like Stream.collect(), all the splits share
+//   the same container, so the combine phase is skipped (the combiner only sees the same container).
+//   The container can not be created by initializer(), it is not called once per evaluation
+//   (andThen() calls the initializer of its left gatherer only once), so each call to asGatherer()
+//   returns a fresh gatherer that owns a shared container, created by the first split of an evaluation
+//   and handed off by the finisher, so the next evaluation creates a new one.
+//   The limits: the gatherer can be evaluated several times but not by two streams at the same time
+//   (they would share the container), and if an evaluation is stopped before the finisher
+//   (an exception or a stream not fully consumed), the next evaluation starts with the old container.
+// - if the collector is IDENTITY_FINISH, the container is pushed as is, without calling the finisher.
+
+<E, A, T> Gatherer<E, A, T> asGatherer(Collector<? super E, A, ? extends T> collector) {
+  var supplier = collector.supplier();
+  var accumulator = collector.accumulator();
+  var combiner = collector.combiner();
+  var finisher = collector.finisher();
+  var characteristics = collector.characteristics();
+  var concurrent = characteristics.contains(Collector.Characteristics.CONCURRENT)
+      && characteristics.contains(Collector.Characteristics.UNORDERED);
+  var identityFinish = characteristics.contains(Collector.Characteristics.IDENTITY_FINISH);
+  var integrator = Gatherer.Integrator.<A, E, T>ofGreedy((state, element, _) -> {
+    accumulator.accept(state, element);
+    return true;
+  });
+  @SuppressWarnings("unchecked")
+  BiConsumer<A, Gatherer.Downstream<? super T>> gathererFinisher = identityFinish
+      ? (state, downstream) -> downstream.push((T) state)
+      : (state, downstream) -> downstream.push(finisher.apply(state));
+  if (!concurrent) {
+    return Gatherer.of(supplier, integrator, combiner, gathererFinisher);
+  }
+  var shared = new AtomicReference<A>();  // the container of the current evaluation
+  return Gatherer.of(
+      () -> {
+        var container = shared.get();
+        if (container == null) {
+          var newContainer = supplier.get();
+          container = shared.compareAndExchange(null, newContainer);
+          if (container == null) {
+            container = newContainer;
+          }
+        }
+        return container;
+      },
+      integrator,
+      (s1, s2) -> s1 == s2 ? s1 : combiner.apply(s1, s2),
+      (state, downstream) -> {
+        shared.compareAndSet(state, null);  // hand off, the next evaluation creates a new container
+        gathererFinisher.accept(state, downstream);
+      });
+}
+
+void main() {
+  var list = List.of(1, 2, 3, 4, 5);
+
+  var result = list.stream()
+      .gather(asGatherer(Collectors.toList()))
+      .findFirst().orElseThrow();
+  System.out.println(result);
+
+  var map = IntStream.range(0, 100_000).boxed().toList().parallelStream()
+      .gather(asGatherer(Collectors.groupingByConcurrent(v -> v % 3, Collectors.counting())))
+      .findFirst().orElseThrow();
+  System.out.println(map);
+
+  // the same gatherer evaluated twice, each evaluation has its own container
+  var counting = asGatherer(Collectors.groupingByConcurrent((Integer v) -> v % 3, Collectors.counting()));
+  System.out.println(list.parallelStream().gather(counting).findFirst().orElseThrow());
+  System.out.println(list.parallelStream().gather(counting).findFirst().orElseThrow());
+
+  var integers = IntStream.range(0, 100_000).boxed().toList();
+  var expected = integers.parallelStream().collect(Collectors.toConcurrentMap(v -> v, v -> v));
+  var toMap = asGatherer(Collectors.toConcurrentMap((Integer v) -> v, v -> v));
+  System.out.println(integers.parallelStream().gather(toMap).findFirst().orElseThrow().equals(expected));
+  System.out.println(integers.parallelStream().gather(toMap).findFirst().orElseThrow().equals(expected));
+}
@@ -0,0 +1,210 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// _15_print_characteristics only shows the static shape of a gatherer,
+// profiled() wraps a gatherer to know what happens at runtime.
+// The counters are plain fields of the state (one state per split, so no contention),
+// they are added in the combiner and published to the StageProfile (and as a JFR event) by the finisher.
+// Only one element every samplingPeriod elements is timed, and the time includes the downstream stages.
+// If the profile is disabled when a state is created, the integrator only delegates.
+
+record Stats(String name, long elementsIn, long elementsOut, long estimatedIntegratorNanos,
+             long shortCircuits, long combinerCalls, long stateAllocations) {}
+
+@Name("wearealltogather.GathererStage")
+@Label("Gatherer Stage")
+@Category("Stream")
+static class GathererStageEvent extends Event {
+  @Label("Stage")
+  String stage;
+  @Label("Elements In")
+  long elementsIn;
+  @Label("Elements Out")
+  long elementsOut;
+  @Label("Estimated Integrator Time")
+  @Timespan(Timespan.NANOSECONDS)
+  long estimatedIntegratorNanos;
+  @Label("Short Circuits")
+  long shortCircuits;
+}
+
+static final class StageProfile {
+  private final String name;
+  private final int samplingPeriod;
+  private volatile boolean enabled = true;
+  private final LongAdder elementsIn = new LongAdder();
+  private final LongAdder elementsOut = new LongAdder();
+  private final LongAdder sampledNanos = new LongAdder();
+  private final LongAdder sampledElements = new LongAdder();
+  private final LongAdder shortCircuits = new LongAdder();
+  private final LongAdder combinerCalls = new LongAdder();
+  private final LongAdder stateAllocations = new LongAdder();
+
+  StageProfile(String name, int samplingPeriod) {
+    this.name = Objects.requireNonNull(name);
+    if (samplingPeriod < 1) {
+      throw new IllegalArgumentException("samplingPeriod < 1");
+    }
+    this.samplingPeriod = samplingPeriod;
+  }
+
+  void enable(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  Stats stats() {
+    var sampled = sampledElements.sum();
+    var in = elementsIn.sum();
+    return new Stats(name, in, elementsOut.sum(), sampled == 0 ? 0 : sampledNanos.sum() * in / sampled,
+        shortCircuits.sum(), combinerCalls.sum(), stateAllocations.sum());
+  }
+}
+
+<T, R> Gatherer<T, ?, R> profiled(StageProfile profile, Gatherer<T, ?, R> gatherer) {
+  return _profiled(profile, gatherer);
+}
+
+<T, A, R> Gatherer<T, ?, R> _profiled(StageProfile profile, Gatherer<T, A, R> gatherer) {
+  Objects.requireNonNull(profile);
+  Objects.requireNonNull(gatherer);
+  var initializer = gatherer.initializer();
+  var integrator = gatherer.integrator();
+  var combiner = gatherer.combiner();
+  var finisher = gatherer.finisher();
+  class State implements Gatherer.Downstream<R> {
+    private A state;
+    private final boolean enabled;
+    private Gatherer.Downstream<? super R> downstream;
+    private long elementsIn, elementsOut, sampledNanos, sampledElements, shortCircuits;
+
+    State(A state, boolean enabled) {
+      this.state = state;
+      this.enabled = enabled;
+    }
+
+    @Override
+    public boolean push(R element) {
+      elementsOut++;
+      return downstream.push(element);
+    }
+
+    @Override
+    public boolean isRejecting() {
+      return downstream.isRejecting();
+    }
+
+    boolean integrate(T element, Gatherer.Downstream<? super R> downstream) {
+      if (!enabled) {
+        return integrator.integrate(state, element, downstream);
+      }
+      this.downstream = downstream;
+      boolean result;
+      if (elementsIn++ % profile.samplingPeriod == 0) {
+        var start = System.nanoTime();
+        result = integrator.integrate(state, element, this);
+        sampledNanos += System.nanoTime() - start;
+        sampledElements++;
+      } else {
+        result = integrator.integrate(state, element, this);
+      }
+      if (!result) {
+        shortCircuits++;
+      }
+      return result;
+    }
+
+    State combine(State other) {
+      if (enabled || other.enabled) {
+        profile.combinerCalls.increment();
+      }
+      state = combiner.apply(state, other.state);
+      elementsIn += other.elementsIn;
+      elementsOut += other.elementsOut;
+      sampledNanos += other.sampledNanos;
+      sampledElements += other.sampledElements;
+      shortCircuits += other.shortCircuits;
+      return this;
+    }
+
+    void finish(Gatherer.Downstream<? super R> downstream) {
+      if (!enabled) {
+        finisher.accept(state, downstream);
+        return;
+      }
+      this.downstream = downstream;
+      finisher.accept(state, this);
+      profile.elementsIn.add(elementsIn);
+      profile.elementsOut.add(elementsOut);
+      profile.sampledNanos.add(sampledNanos);
+      profile.sampledElements.add(sampledElements);
+      profile.shortCircuits.add(shortCircuits);
+      var event = new GathererStageEvent();
+      if (event.isEnabled()) {
+        event.stage = profile.name;
+        event.elementsIn = elementsIn;
+        event.elementsOut = elementsOut;
+        event.estimatedIntegratorNanos = sampledElements == 0 ? 0 : sampledNanos * elementsIn / sampledElements;
+        event.shortCircuits = shortCircuits;
+        event.commit();
+      }
+    }
+  }
+  Supplier<State> stateInitializer = () -> {
+    var enabled = profile.enabled;
+    if (enabled) {
+      profile.stateAllocations.increment();
+    }
+    return new State(initializer.get(), enabled);
+  };
+  var stateIntegrator = integrator instanceof Gatherer.Integrator.Greedy<?, ?, ?>
+      ? Gatherer.Integrator.<State, T, R>ofGreedy((state, element, downstream) -> state.integrate(element, downstream))
+      : Gatherer.Integrator.<State, T, R>of((state, element, downstream) -> state.integrate(element, downstream));
+  var stateCombiner = combiner == Gatherer.defaultCombiner()
+      ? Gatherer.<State>defaultCombiner()
+      : (BinaryOperator<State>) State::combine;
+  return Gatherer.of(stateInitializer, stateIntegrator, stateCombiner, (state, downstream) -> state.finish(downstream));
+}
+
+<T> Gatherer<T, ?, T> filter(Predicate<? super T> predicate) {
+  return Gatherer.of(Gatherer.Integrator.ofGreedy((_, element, downstream) -> {
+    if (predicate.test(element)) {
+      return downstream.push(element);
+    }
+    return true;
+  }));
+}
+
+void main() {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      item12
+      """;
+
+  var filterProfile = new StageProfile("filter", 1);
+  var windowProfile = new StageProfile("windowFixed", 1);
+  var result = text.lines()
+      .gather(profiled(filterProfile, filter(s -> s.startsWith("item"))))
+      .gather(profiled(windowProfile, Gatherers.windowFixed(2)))
+      .toList();
+  System.out.println(result);
+  System.out.println(filterProfile.stats());
+  System.out.println(windowProfile.stats());
+
+  var parallelProfile = new StageProfile("filter parallel", 16);
+  var count = IntStream.range(0, 100_000).boxed().toList().parallelStream()
+      .gather(profiled(parallelProfile, filter(v -> v % 2 == 0)))
+      .count();
+  System.out.println(count + " " + parallelProfile.stats());
+
+  parallelProfile.enable(false);
+  IntStream.range(0, 100_000).boxed().toList().parallelStream()
+      .gather(profiled(parallelProfile, filter(v -> v % 2 == 0)))
+      .count();
+  System.out.println(parallelProfile.stats());
+}
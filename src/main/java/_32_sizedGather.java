@@ -0,0 +1,127 @@
+// stream.gather() does not know that a gatherer like map() pushes exactly one element per element,
+// so the resulting stream is not SIZED anymore, count() has to push all the elements
+// and toList() can not allocate the array with the right size.
+// A OneToOne gatherer is a gatherer with a greedy integrator that pushes exactly one element
+// for each element and a finisher that pushes nothing.
+// gather(stream, gatherer) recognizes those gatherers and keeps the size of the stream.
+// A OneToOne implemented by hand may still have a finisher, in that case stream.gather() is used.
+
+interface OneToOne<T, A, R> extends Gatherer<T, A, R> {
+  static <T, A, R> OneToOne<T, A, R> of(Supplier<A> initializer, Integrator.Greedy<A, T, R> integrator,
+                                        BinaryOperator<A> combiner) {
+    Objects.requireNonNull(initializer);
+    Objects.requireNonNull(integrator);
+    Objects.requireNonNull(combiner);
+    record OneToOneImpl<T, A, R>(Supplier<A> initializer, Integrator<A, T, R> integrator, BinaryOperator<A> combiner)
+        implements OneToOne<T, A, R> {}
+    return new OneToOneImpl<>(initializer, integrator, combiner);
+  }
+}
+
+<T, R> Stream<R> gather(Stream<T> stream, Gatherer<? super T, ?, R> gatherer) {
+  if (gatherer instanceof OneToOne<? super T, ?, R> oneToOne && (Object) oneToOne.finisher() == Gatherer.defaultFinisher()) {
+    return gatherSized(stream, oneToOne);
+  }
+  return stream.gather(gatherer);
+}
+
+<T, A, R> Stream<R> gatherSized(Stream<T> stream, OneToOne<? super T, A, R> gatherer) {
+  var initializer = gatherer.initializer();
+  var integrator = gatherer.integrator();
+  var splittable = initializer == Gatherer.defaultInitializer() && gatherer.combiner() != Gatherer.defaultCombiner();
+  class SizedSpliterator implements Spliterator<R>, Consumer<T>, Gatherer.Downstream<R> {
+    private final Spliterator<T> spliterator;
+    private final A state;
+    private Consumer<? super R> action;
+
+    SizedSpliterator(Spliterator<T> spliterator) {
+      this.spliterator = spliterator;
+      this.state = initializer.get();
+    }
+
+    @Override
+    public boolean push(R element) {
+      action.accept(element);
+      return true;
+    }
+
+    @Override
+    public void accept(T element) {
+      integrator.integrate(state, element, this);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super R> action) {
+      this.action = action;
+      return spliterator.tryAdvance(this);
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super R> action) {
+      this.action = action;
+      spliterator.forEachRemaining(this);
+    }
+
+    @Override
+    public Spliterator<R> trySplit() {
+      if (!splittable) {
+        return null;
+      }
+      var prefix = spliterator.trySplit();
+      return prefix == null ? null : new SizedSpliterator(prefix);
+    }
+
+    @Override
+    public long estimateSize() {
+      return spliterator.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+      return spliterator.characteristics() & (SIZED | SUBSIZED | ORDERED);
+    }
+  }
+  return StreamSupport.stream(new SizedSpliterator(stream.spliterator()), stream.isParallel())
+      .onClose(stream::close);
+}
+
+<T, R> Gatherer<T, ?, R> map(Function<? super T, ? extends R> mapper) {
+  Objects.requireNonNull(mapper);
+  return OneToOne.<T, Void, R>of(
+      Gatherer.defaultInitializer(),
+      Gatherer.Integrator.ofGreedy((_, element, downstream) -> {
+        return downstream.push(mapper.apply(element));
+      }),
+      (_, _) -> null);
+}
+
+record Indexed<T>(long index, T element) {}
+
+<T> Gatherer<T, ?, Indexed<T>> withIndex() {
+  return OneToOne.of(
+      () -> new Object() { long index; },
+      Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+        return downstream.push(new Indexed<>(state.index++, element));
+      }),
+      Gatherer.defaultCombiner());  // sequential
+}
+
+void main() {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      item12
+      """;
+
+  var result = gather(text.lines(), map(String::length))
+      .toList();
+  System.out.println(result);
+
+  var list = IntStream.range(0, 100_000).boxed().toList();
+  System.out.println(gather(list.stream(), map(v -> v + 1)).spliterator().getExactSizeIfKnown());
+  System.out.println(gather(list.parallelStream(), map(v -> v + 1)).count());
+  System.out.println(gather(list.stream(), withIndex()).skip(99_998).toList());
+  System.out.println(gather(list.stream(), Gatherers.windowFixed(2)).spliterator().getExactSizeIfKnown());
+}
@@ -0,0 +1,271 @@
+// Gatherers.mapConcurrent() pushes the results in the order of the elements,
+// so one slow element holds back all the results behind it.
+// This mapConcurrent() runs the mapper on virtual threads and is configured by Options
+// - unordered(), the results are pushed in completion order,
+// - batch(batchSize), a virtual thread maps batchSize elements (if one fails, the whole batch fails),
+// - maxInFlightWeight(max, weigher), limits the sum of the weights of the elements
+//   submitted but not yet pushed, in addition to maxConcurrency which limits the number of tasks,
+// - collectErrors(), instead of failing at the first error, the results of the batches that did not fail
+//   are pushed and the errors are thrown at the end as the suppressed exceptions of a MapConcurrentException.
+// The gatherer is sequential, the integrator submits the tasks and blocks when there are too many in flight,
+// the tasks signal their completion using a queue.
+
+record Options<T>(int maxConcurrency, boolean ordered, int batchSize,
+                  long maxInFlightWeight, ToLongFunction<? super T> weigher, boolean failFast) {
+  Options {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("maxConcurrency < 1");
+    }
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize < 1");
+    }
+    if (maxInFlightWeight < 1) {
+      throw new IllegalArgumentException("maxInFlightWeight < 1");
+    }
+    Objects.requireNonNull(weigher);
+  }
+
+  static <T> Options<T> of(int maxConcurrency) {
+    return new Options<>(maxConcurrency, true, 1, Long.MAX_VALUE, _ -> 0, true);
+  }
+
+  Options<T> unordered() {
+    return new Options<>(maxConcurrency, false, batchSize, maxInFlightWeight, weigher, failFast);
+  }
+
+  Options<T> batch(int batchSize) {
+    return new Options<>(maxConcurrency, ordered, batchSize, maxInFlightWeight, weigher, failFast);
+  }
+
+  Options<T> maxInFlightWeight(long maxInFlightWeight, ToLongFunction<? super T> weigher) {
+    return new Options<>(maxConcurrency, ordered, batchSize, maxInFlightWeight, weigher, failFast);
+  }
+
+  Options<T> collectErrors() {
+    return new Options<>(maxConcurrency, ordered, batchSize, maxInFlightWeight, weigher, false);
+  }
+}
+
+static final class MapConcurrentException extends RuntimeException {
+  MapConcurrentException(String message) {
+    super(message);
+  }
+
+  MapConcurrentException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
+
+<T, R> Gatherer<T, ?, R> mapConcurrent(Options<? super T> options, Function<? super T, ? extends R> mapper) {
+  Objects.requireNonNull(options);
+  Objects.requireNonNull(mapper);
+  class Task extends FutureTask<List<R>> {
+    private final long weight;
+    private final BlockingQueue<Task> completions;
+
+    Task(List<T> batch, long weight, BlockingQueue<Task> completions) {
+      super(() -> {
+        var results = new ArrayList<R>(batch.size());
+        for (var element : batch) {
+          results.add(mapper.apply(element));
+        }
+        return results;
+      });
+      this.weight = weight;
+      this.completions = completions;
+    }
+
+    @Override
+    protected void done() {
+      completions.add(this);
+    }
+  }
+  class State {
+    private final ArrayDeque<Task> pending = new ArrayDeque<>();  // submission order
+    private final LinkedBlockingQueue<Task> completions = new LinkedBlockingQueue<>();
+    private final ArrayList<Throwable> errors = new ArrayList<>();
+    private ArrayList<T> batch = new ArrayList<>();
+    private long batchWeight;
+    private long inFlightWeight;
+
+    boolean integrate(T element, Gatherer.Downstream<? super R> downstream) {
+      batch.add(element);
+      batchWeight += options.weigher().applyAsLong(element);
+      if (batch.size() == options.batchSize()) {
+        if (!submit(downstream)) {
+          return false;
+        }
+      }
+      if (!drain(downstream, false)) {
+        return false;
+      }
+      if (downstream.isRejecting()) {
+        cancel();
+        return false;
+      }
+      return true;
+    }
+
+    boolean submit(Gatherer.Downstream<? super R> downstream) {
+      while (pending.size() == options.maxConcurrency()
+          || (!pending.isEmpty() && inFlightWeight + batchWeight > options.maxInFlightWeight())) {
+        if (!drain(downstream, true)) {
+          return false;
+        }
+      }
+      var task = new Task(batch, batchWeight, completions);
+      pending.add(task);
+      inFlightWeight += batchWeight;
+      batch = new ArrayList<>();
+      batchWeight = 0;
+      Thread.startVirtualThread(task);
+      return true;
+    }
+
+    // if blocking, wait for at least one completion
+    boolean drain(Gatherer.Downstream<? super R> downstream, boolean blocking) {
+      for (;;) {
+        Task task;
+        if (blocking) {
+          try {
+            task = completions.take();
+          } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("interrupted");
+          }
+          blocking = false;
+        } else {
+          task = completions.poll();
+          if (task == null) {
+            return true;
+          }
+        }
+        if (options.failFast() && task.state() == Future.State.FAILED) {
+          emit(task, downstream);  // throws without waiting for the tasks submitted before
+        }
+        if (options.ordered()) {
+          while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+            if (!emit(pending.pollFirst(), downstream)) {
+              return false;
+            }
+          }
+          continue;
+        }
+        if (pending.remove(task) && !emit(task, downstream)) {  // already removed if cancelled
+          return false;
+        }
+      }
+    }
+
+    boolean emit(Task task, Gatherer.Downstream<? super R> downstream) {
+      inFlightWeight -= task.weight;
+      List<R> results;
+      try {
+        results = task.get();  // the task is done
+      } catch (InterruptedException | CancellationException e) {
+        throw new AssertionError(e);
+      } catch (ExecutionException e) {
+        var cause = e.getCause();
+        if (options.failFast()) {
+          cancel();
+          switch (cause) {
+            case RuntimeException runtimeException -> throw runtimeException;
+            case Error error -> throw error;
+            default -> throw new MapConcurrentException(cause.toString(), cause);
+          }
+        }
+        errors.add(cause);
+        return true;
+      }
+      for (var result : results) {
+        if (!downstream.push(result)) {
+          cancel();
+          return false;
+        }
+      }
+      return true;
+    }
+
+    void cancel() {
+      for (var task : pending) {
+        task.cancel(true);
+      }
+      pending.clear();
+      batch.clear();
+    }
+
+    void finish(Gatherer.Downstream<? super R> downstream) {
+      if (downstream.isRejecting()) {
+        cancel();
+        return;
+      }
+      if (!batch.isEmpty() && !submit(downstream)) {
+        return;
+      }
+      while (!pending.isEmpty()) {
+        if (!drain(downstream, true)) {
+          return;
+        }
+      }
+      if (!errors.isEmpty()) {
+        var exception = new MapConcurrentException(errors.size() + " batch(es) failed");
+        errors.forEach(exception::addSuppressed);
+        throw exception;
+      }
+    }
+  }
+  return Gatherer.ofSequential(
+      State::new,
+      (state, element, downstream) -> state.integrate(element, downstream),
+      (state, downstream) -> state.finish(downstream));
+}
+
+String service(int value) {
+  try {
+    Thread.sleep(value % 10 == 0 ? 200 : 10);  // one element every 10 is slow
+  } catch (InterruptedException e) {
+    throw new IllegalStateException(e);
+  }
+  if (value == 13) {
+    throw new IllegalArgumentException("unlucky " + value);
+  }
+  return "v" + value;
+}
+
+void main() {
+  var list = IntStream.range(0, 30).boxed().toList();
+
+  var ordered = list.stream()
+      .gather(mapConcurrent(Options.<Integer>of(4).batch(2), v -> v == 13 ? "v13" : service(v)))
+      .toList();
+  System.out.println(ordered);
+
+  var unordered = list.stream()
+      .gather(mapConcurrent(Options.<Integer>of(4).unordered(), v -> v == 13 ? "v13" : service(v)))
+      .toList();
+  System.out.println(unordered);
+
+  var firstThree = list.stream()
+      .gather(mapConcurrent(Options.<Integer>of(8).unordered()
+          .maxInFlightWeight(100, v -> v), this::service))
+      .limit(3)
+      .toList();
+  System.out.println(firstThree);
+
+  try {
+    list.stream()
+        .gather(mapConcurrent(Options.<Integer>of(4), this::service))
+        .toList();
+  } catch (IllegalArgumentException e) {
+    System.out.println("fail fast: " + e.getMessage());
+  }
+
+  try {
+    list.stream()
+        .gather(mapConcurrent(Options.<Integer>of(4).unordered().collectErrors(), this::service))
+        .forEach(_ -> {});
+  } catch (MapConcurrentException e) {
+    System.out.println("collect errors: " + e.getMessage() + " " + Arrays.toString(e.getSuppressed()));
+  }
+}
@@ -0,0 +1,294 @@
+// Gatherers.scan() is sequential because the scanner is not required to be associative.
+// If the operator is associative (like Arrays.parallelPrefix()), each split can scan its elements locally,
+// the combiner combines the totals of the splits and records the carry (the total of all the splits on the left)
+// that has to be applied to each local prefix, the finisher applies the carries of the splits in parallel
+// (one task per split) and pushes the prefixes in encounter order.
+// scanLong() and scanDouble() do the same but store the local prefixes in primitive arrays.
+// A Gatherer works on a Stream, so scanLong() and scanDouble() still box each element on the way in and out,
+// scanLong(LongStream) and scanDouble(DoubleStream) do not box, the elements are collected into an array
+// (in parallel if the stream is parallel) and the array is scanned in place by Arrays.parallelPrefix(),
+// lazily, when the resulting stream is consumed.
+// Note that a floating point sum is not exactly associative, so the last digits may differ from a sequential scan.
+
+<T> Gatherer<T, ?, T> scan(BinaryOperator<T> operator) {
+  Objects.requireNonNull(operator);
+  class Segment {
+    final ArrayList<T> prefixes = new ArrayList<>();
+    boolean hasCarry;
+    T carry;
+
+    void applyCarry() {
+      if (!hasCarry) {
+        return;
+      }
+      prefixes.replaceAll(prefix -> operator.apply(carry, prefix));
+    }
+  }
+  class State {
+    final ArrayList<Segment> segments = new ArrayList<>();  // one segment per split, in encounter order
+    boolean empty = true;
+    T total;
+
+    State() {
+      segments.add(new Segment());
+    }
+  }
+  return Gatherer.of(
+      State::new,
+      Gatherer.Integrator.ofGreedy((state, element, _) -> {
+        state.total = state.empty ? element : operator.apply(state.total, element);
+        state.empty = false;
+        state.segments.getFirst().prefixes.add(state.total);
+        return true;
+      }),
+      (s1, s2) -> {
+        if (s1.empty) {
+          return s2;
+        }
+        if (s2.empty) {
+          return s1;
+        }
+        for (var segment : s2.segments) {
+          segment.carry = segment.hasCarry ? operator.apply(s1.total, segment.carry) : s1.total;
+          segment.hasCarry = true;
+          s1.segments.add(segment);
+        }
+        s1.total = operator.apply(s1.total, s2.total);
+        return s1;
+      },
+      (state, downstream) -> {
+        if (state.segments.size() != 1) {
+          state.segments.parallelStream().forEach(Segment::applyCarry);
+        }
+        for (var segment : state.segments) {
+          for (var prefix : segment.prefixes) {
+            if (!downstream.push(prefix)) {
+              return;
+            }
+          }
+        }
+      }
+  );
+}
+
+Gatherer<Long, ?, Long> scanLong(LongBinaryOperator operator) {
+  Objects.requireNonNull(operator);
+  class Segment {
+    long[] prefixes = new long[16];
+    int size;
+    boolean hasCarry;
+    long carry;
+
+    void add(long prefix) {
+      if (size == prefixes.length) {
+        prefixes = Arrays.copyOf(prefixes, size << 1);
+      }
+      prefixes[size++] = prefix;
+    }
+
+    void applyCarry() {
+      if (!hasCarry) {
+        return;
+      }
+      for (var i = 0; i < size; i++) {
+        prefixes[i] = operator.applyAsLong(carry, prefixes[i]);
+      }
+    }
+  }
+  class State {
+    final ArrayList<Segment> segments = new ArrayList<>();
+    boolean empty = true;
+    long total;
+
+    State() {
+      segments.add(new Segment());
+    }
+  }
+  return Gatherer.of(
+      State::new,
+      Gatherer.Integrator.ofGreedy((state, element, _) -> {
+        state.total = state.empty ? element : operator.applyAsLong(state.total, element);
+        state.empty = false;
+        state.segments.getFirst().add(state.total);
+        return true;
+      }),
+      (s1, s2) -> {
+        if (s1.empty) {
+          return s2;
+        }
+        if (s2.empty) {
+          return s1;
+        }
+        for (var segment : s2.segments) {
+          segment.carry = segment.hasCarry ? operator.applyAsLong(s1.total, segment.carry) : s1.total;
+          segment.hasCarry = true;
+          s1.segments.add(segment);
+        }
+        s1.total = operator.applyAsLong(s1.total, s2.total);
+        return s1;
+      },
+      (state, downstream) -> {
+        if (state.segments.size() == 1) {
+          state.segments.getFirst().applyCarry();
+        } else {
+          state.segments.parallelStream().forEach(Segment::applyCarry);
+        }
+        for (var segment : state.segments) {
+          for (var i = 0; i < segment.size; i++) {
+            if (!downstream.push(segment.prefixes[i])) {
+              return;
+            }
+          }
+        }
+      }
+  );
+}
+
+Gatherer<Double, ?, Double> scanDouble(DoubleBinaryOperator operator) {
+  Objects.requireNonNull(operator);
+  class Segment {
+    double[] prefixes = new double[16];
+    int size;
+    boolean hasCarry;
+    double carry;
+
+    void add(double prefix) {
+      if (size == prefixes.length) {
+        prefixes = Arrays.copyOf(prefixes, size << 1);
+      }
+      prefixes[size++] = prefix;
+    }
+
+    void applyCarry() {
+      if (!hasCarry) {
+        return;
+      }
+      for (var i = 0; i < size; i++) {
+        prefixes[i] = operator.applyAsDouble(carry, prefixes[i]);
+      }
+    }
+  }
+  class State {
+    final ArrayList<Segment> segments = new ArrayList<>();
+    boolean empty = true;
+    double total;
+
+    State() {
+      segments.add(new Segment());
+    }
+  }
+  return Gatherer.of(
+      State::new,
+      Gatherer.Integrator.ofGreedy((state, element, _) -> {
+        state.total = state.empty ? element : operator.applyAsDouble(state.total, element);
+        state.empty = false;
+        state.segments.getFirst().add(state.total);
+        return true;
+      }),
+      (s1, s2) -> {
+        if (s1.empty) {
+          return s2;
+        }
+        if (s2.empty) {
+          return s1;
+        }
+        for (var segment : s2.segments) {
+          segment.carry = segment.hasCarry ? operator.applyAsDouble(s1.total, segment.carry) : s1.total;
+          segment.hasCarry = true;
+          s1.segments.add(segment);
+        }
+        s1.total = operator.applyAsDouble(s1.total, s2.total);
+        return s1;
+      },
+      (state, downstream) -> {
+        if (state.segments.size() == 1) {
+          state.segments.getFirst().applyCarry();
+        } else {
+          state.segments.parallelStream().forEach(Segment::applyCarry);
+        }
+        for (var segment : state.segments) {
+          for (var i = 0; i < segment.size; i++) {
+            if (!downstream.push(segment.prefixes[i])) {
+              return;
+            }
+          }
+        }
+      }
+  );
+}
+
+LongStream scanLong(LongStream stream, LongBinaryOperator operator) {
+  Objects.requireNonNull(stream);
+  Objects.requireNonNull(operator);
+  var parallel = stream.isParallel();
+  return StreamSupport.longStream(() -> {
+        var array = stream.toArray();
+        if (parallel) {
+          Arrays.parallelPrefix(array, operator);
+        } else {
+          for (var i = 1; i < array.length; i++) {
+            array[i] = operator.applyAsLong(array[i - 1], array[i]);
+          }
+        }
+        return Arrays.spliterator(array);
+      }, Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.IMMUTABLE, parallel)
+      .onClose(stream::close);
+}
+
+DoubleStream scanDouble(DoubleStream stream, DoubleBinaryOperator operator) {
+  Objects.requireNonNull(stream);
+  Objects.requireNonNull(operator);
+  var parallel = stream.isParallel();
+  return StreamSupport.doubleStream(() -> {
+        var array = stream.toArray();
+        if (parallel) {
+          Arrays.parallelPrefix(array, operator);
+        } else {
+          for (var i = 1; i < array.length; i++) {
+            array[i] = operator.applyAsDouble(array[i - 1], array[i]);
+          }
+        }
+        return Arrays.spliterator(array);
+      }, Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.IMMUTABLE, parallel)
+      .onClose(stream::close);
+}
+
+void main() {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      item12
+      """;
+
+  var result = text.lines()
+      .parallel()
+      .gather(scan(String::concat))
+      .toList();
+  System.out.println(result);
+
+  var list = IntStream.range(0, 1_000_000).boxed().toList();
+  var sums = list.parallelStream()
+      .gather(scan(Integer::sum))
+      .toList();
+  System.out.println(sums.equals(list.stream().gather(Gatherers.scan(() -> 0, Integer::sum)).toList()));
+
+  var array = LongStream.range(0, 10_000_000).toArray();
+  var runningSums = Arrays.stream(array).boxed()
+      .parallel()
+      .gather(scanLong(Long::sum))
+      .mapToLong(v -> v)
+      .toArray();
+  var expected = array.clone();
+  Arrays.parallelPrefix(expected, Long::sum);
+  System.out.println(Arrays.equals(runningSums, expected));
+  System.out.println(Arrays.equals(scanLong(Arrays.stream(array).parallel(), Long::sum).toArray(), expected));
+
+  var doubles = DoubleStream.generate(() -> 0.5).limit(1_000_000).boxed().toList();
+  var last = doubles.parallelStream()
+      .gather(scanDouble(Double::sum))
+      .reduce((_, v) -> v).orElseThrow();
+  System.out.println(last);
+  System.out.println(scanDouble(DoubleStream.generate(() -> 0.5).limit(1_000_000), Double::sum).max().orElseThrow());
+}
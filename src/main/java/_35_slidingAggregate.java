@@ -0,0 +1,280 @@
+// Gatherers.windowSliding() creates a new List for each window, so aggregating each window with a map()
+// costs O(windowSize) per element.
+// Here the aggregation is updated incrementally, without allocating anything per element
+// - the sum (and the average) removes the value that leaves the window, stored in a ring buffer,
+//   and adds the new one, so it is O(1),
+// - the min (and the max) uses a monotonic deque, a ring buffer of the candidates ordered by value,
+//   each element is added and removed at most once, so it is amortized O(1).
+// Like windowSliding(), an aggregate is pushed for each full window, or once for a stream shorter than the window.
+// The long versions (slidingSum, slidingMinLong, slidingMaxLong) store primitive values.
+// The double average may drift a little because the values are added then subtracted.
+
+// the last capacity values
+static final class LongRing {
+  private final long[] values;
+  private int next;
+  private long count;
+
+  LongRing(int capacity) {
+    values = new long[capacity];
+  }
+
+  long count() {
+    return count;
+  }
+
+  boolean isFull() {
+    return count >= values.length;
+  }
+
+  long oldest() {
+    return values[next];
+  }
+
+  void add(long value) {
+    values[next] = value;
+    if (++next == values.length) {
+      next = 0;
+    }
+    count++;
+  }
+}
+
+// the candidates for the min (or the max) of the last windowSize values, sorted by value
+static final class LongMonotonicDeque {
+  private final long[] values;
+  private final long[] positions;
+  private final boolean max;
+  private int head;
+  private int size;
+  private long position;
+
+  LongMonotonicDeque(int windowSize, boolean max) {
+    values = new long[windowSize];
+    positions = new long[windowSize];
+    this.max = max;
+  }
+
+  private int index(int offset) {
+    var index = head + offset;
+    return index >= values.length ? index - values.length : index;
+  }
+
+  void add(long value) {
+    while (size != 0) {
+      var tail = values[index(size - 1)];
+      if (max ? tail > value : tail < value) {
+        break;
+      }
+      size--;
+    }
+    if (size != 0 && positions[head] <= position - values.length) {
+      head = index(1);
+      size--;
+    }
+    var index = index(size);
+    values[index] = value;
+    positions[index] = position++;
+    size++;
+  }
+
+  long count() {
+    return position;
+  }
+
+  long first() {
+    return values[head];
+  }
+}
+
+static final class MonotonicDeque<T> {
+  private final Object[] values;
+  private final long[] positions;
+  private final Comparator<? super T> comparator;
+  private int head;
+  private int size;
+  private long position;
+
+  MonotonicDeque(int windowSize, Comparator<? super T> comparator) {
+    values = new Object[windowSize];
+    positions = new long[windowSize];
+    this.comparator = comparator;
+  }
+
+  private int index(int offset) {
+    var index = head + offset;
+    return index >= values.length ? index - values.length : index;
+  }
+
+  void add(T value) {
+    while (size != 0) {
+      var tailIndex = index(size - 1);
+      @SuppressWarnings("unchecked")
+      var tail = (T) values[tailIndex];
+      if (comparator.compare(tail, value) < 0) {
+        break;
+      }
+      values[tailIndex] = null;
+      size--;
+    }
+    if (size != 0 && positions[head] <= position - values.length) {
+      values[head] = null;
+      head = index(1);
+      size--;
+    }
+    var index = index(size);
+    values[index] = value;
+    positions[index] = position++;
+    size++;
+  }
+
+  long count() {
+    return position;
+  }
+
+  @SuppressWarnings("unchecked")
+  T first() {
+    return (T) values[head];
+  }
+}
+
+static void checkWindowSize(int windowSize) {
+  if (windowSize < 1) {
+    throw new IllegalArgumentException("windowSize < 1");
+  }
+}
+
+<T> Gatherer<T, ?, Long> slidingSum(int windowSize, ToLongFunction<? super T> mapper) {
+  checkWindowSize(windowSize);
+  Objects.requireNonNull(mapper);
+  class State {
+    final LongRing ring = new LongRing(windowSize);
+    long sum;
+  }
+  return Gatherer.ofSequential(
+      State::new,
+      Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+        var value = mapper.applyAsLong(element);
+        var ring = state.ring;
+        if (ring.isFull()) {
+          state.sum -= ring.oldest();
+        }
+        ring.add(value);
+        state.sum += value;
+        return !ring.isFull() || downstream.push(state.sum);
+      }),
+      (state, downstream) -> {
+        if (!state.ring.isFull() && state.ring.count() != 0) {
+          downstream.push(state.sum);
+        }
+      }
+  );
+}
+
+<T> Gatherer<T, ?, Double> slidingAverage(int windowSize, ToDoubleFunction<? super T> mapper) {
+  checkWindowSize(windowSize);
+  Objects.requireNonNull(mapper);
+  class State {
+    final double[] ring = new double[windowSize];
+    int next;
+    long count;
+    double sum;
+  }
+  return Gatherer.ofSequential(
+      State::new,
+      Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+        var value = mapper.applyAsDouble(element);
+        if (state.count >= windowSize) {
+          state.sum -= state.ring[state.next];
+        }
+        state.ring[state.next] = value;
+        if (++state.next == windowSize) {
+          state.next = 0;
+        }
+        state.count++;
+        state.sum += value;
+        return state.count < windowSize || downstream.push(state.sum / windowSize);
+      }),
+      (state, downstream) -> {
+        if (state.count < windowSize && state.count != 0) {
+          downstream.push(state.sum / state.count);
+        }
+      }
+  );
+}
+
+<T> Gatherer<T, ?, T> slidingMin(int windowSize, Comparator<? super T> comparator) {
+  checkWindowSize(windowSize);
+  Objects.requireNonNull(comparator);
+  return Gatherer.ofSequential(
+      () -> new MonotonicDeque<T>(windowSize, comparator),
+      Gatherer.Integrator.ofGreedy((deque, element, downstream) -> {
+        deque.add(element);
+        return deque.count() < windowSize || downstream.push(deque.first());
+      }),
+      (deque, downstream) -> {
+        if (deque.count() < windowSize && deque.count() != 0) {
+          downstream.push(deque.first());
+        }
+      }
+  );
+}
+
+<T> Gatherer<T, ?, T> slidingMax(int windowSize, Comparator<? super T> comparator) {
+  Objects.requireNonNull(comparator);
+  return slidingMin(windowSize, comparator.reversed());
+}
+
+<T> Gatherer<T, ?, Long> slidingMinLong(int windowSize, ToLongFunction<? super T> mapper) {
+  return slidingLong(windowSize, mapper, false);
+}
+
+<T> Gatherer<T, ?, Long> slidingMaxLong(int windowSize, ToLongFunction<? super T> mapper) {
+  return slidingLong(windowSize, mapper, true);
+}
+
+<T> Gatherer<T, ?, Long> slidingLong(int windowSize, ToLongFunction<? super T> mapper, boolean max) {
+  checkWindowSize(windowSize);
+  Objects.requireNonNull(mapper);
+  return Gatherer.ofSequential(
+      () -> new LongMonotonicDeque(windowSize, max),
+      Gatherer.Integrator.ofGreedy((deque, element, downstream) -> {
+        deque.add(mapper.applyAsLong(element));
+        return deque.count() < windowSize || downstream.push(deque.first());
+      }),
+      (deque, downstream) -> {
+        if (deque.count() < windowSize && deque.count() != 0) {
+          downstream.push(deque.first());
+        }
+      }
+  );
+}
+
+void main() {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      item12
+      """;
+
+  System.out.println(text.lines().gather(slidingSum(2, String::length)).toList());
+  System.out.println(text.lines().gather(slidingAverage(2, String::length)).toList());
+  System.out.println(text.lines().gather(slidingMin(3, Comparator.naturalOrder())).toList());
+  System.out.println(text.lines().gather(slidingMaxLong(3, String::length)).toList());
+  System.out.println(text.lines().gather(slidingSum(10, String::length)).toList());
+
+  var random = new Random(0);
+  var list = random.ints(100_000, 0, 1_000).boxed().toList();
+  var windowSize = 100;
+  System.out.println(list.stream().gather(slidingMin(windowSize, Integer::compare)).toList()
+      .equals(list.stream().gather(Gatherers.windowSliding(windowSize))
+          .map(window -> Collections.min(window)).toList()));
+  System.out.println(list.stream().gather(slidingMaxLong(windowSize, v -> v)).toList()
+      .equals(list.stream().gather(Gatherers.windowSliding(windowSize))
+          .map(window -> (long) Collections.max(window)).toList()));
+  System.out.println(list.stream().gather(slidingSum(windowSize, v -> v)).toList()
+      .equals(list.stream().gather(Gatherers.windowSliding(windowSize))
+          .map(window -> window.stream().mapToLong(v -> v).sum()).toList()));
+}
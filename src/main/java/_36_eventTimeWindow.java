@@ -0,0 +1,190 @@
+// _21_windowByWithCollector cuts the windows when an element matches a predicate,
+// here the windows are defined by the timestamp of the elements (the event time)
+// - tumbling(size), consecutive windows [start, start + size[ with start a multiple of size,
+// - hopping(size, slide), windows [start, start + size[ with start a multiple of slide, so they overlap,
+// - session(gap), a window groups the elements that are less than gap apart.
+// The elements may arrive out of order, so each gatherer tracks a watermark, the max timestamp seen
+// minus allowedLateness. A window that ends before the watermark can not receive any element anymore,
+// so it is pushed and its container is released right away, and not in the finisher.
+// This keeps the memory bounded on an infinite stream.
+// An element with a timestamp before the watermark may belong to a window already pushed, so it is dropped.
+
+record Window<R>(long start, long end, R value) {}
+
+<T, R> Gatherer<T, ?, Window<R>> tumbling(ToLongFunction<? super T> timestamp, long size, long allowedLateness,
+                                          Collector<? super T, ?, ? extends R> collector) {
+  return hopping(timestamp, size, size, allowedLateness, collector);
+}
+
+<T, R> Gatherer<T, ?, Window<R>> hopping(ToLongFunction<? super T> timestamp, long size, long slide, long allowedLateness,
+                                         Collector<? super T, ?, ? extends R> collector) {
+  return _hopping(timestamp, size, slide, allowedLateness, collector);
+}
+
+<T, A, R> Gatherer<T, ?, Window<R>> _hopping(ToLongFunction<? super T> timestamp, long size, long slide, long allowedLateness,
+                                             Collector<? super T, A, ? extends R> collector) {
+  Objects.requireNonNull(timestamp);
+  Objects.requireNonNull(collector);
+  if (size < 1) {
+    throw new IllegalArgumentException("size < 1");
+  }
+  if (slide < 1 || slide > size) {
+    throw new IllegalArgumentException("slide < 1 or slide > size");
+  }
+  if (allowedLateness < 0) {
+    throw new IllegalArgumentException("allowedLateness < 0");
+  }
+  var supplier = collector.supplier();
+  var accumulator = collector.accumulator();
+  var finisher = collector.finisher();
+  class State {
+    final TreeMap<Long, A> windows = new TreeMap<>();  // the open windows by start
+    long watermark = Long.MIN_VALUE;
+
+    boolean pushClosedWindows(Gatherer.Downstream<? super Window<R>> downstream) {
+      for (;;) {
+        var entry = windows.firstEntry();
+        if (entry == null || entry.getKey() + size > watermark) {
+          return true;
+        }
+        windows.pollFirstEntry();
+        if (!downstream.push(new Window<>(entry.getKey(), entry.getKey() + size, finisher.apply(entry.getValue())))) {
+          return false;
+        }
+      }
+    }
+  }
+  return Gatherer.ofSequential(
+      State::new,
+      Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+        var time = timestamp.applyAsLong(element);
+        for (var start = Math.floorDiv(time, slide) * slide; start > time - size; start -= slide) {
+          if (start + size <= state.watermark) {
+            break;  // too late, this window and the ones before were already pushed
+          }
+          accumulator.accept(state.windows.computeIfAbsent(start, _ -> supplier.get()), element);
+        }
+        state.watermark = Math.max(state.watermark, time - allowedLateness);
+        return state.pushClosedWindows(downstream);
+      }),
+      (state, downstream) -> {
+        state.watermark = Long.MAX_VALUE;
+        state.pushClosedWindows(downstream);
+      }
+  );
+}
+
+<T, R> Gatherer<T, ?, Window<R>> session(ToLongFunction<? super T> timestamp, long gap, long allowedLateness,
+                                         Collector<? super T, ?, ? extends R> collector) {
+  return _session(timestamp, gap, allowedLateness, collector);
+}
+
+<T, A, R> Gatherer<T, ?, Window<R>> _session(ToLongFunction<? super T> timestamp, long gap, long allowedLateness,
+                                             Collector<? super T, A, ? extends R> collector) {
+  Objects.requireNonNull(timestamp);
+  Objects.requireNonNull(collector);
+  if (gap < 1) {
+    throw new IllegalArgumentException("gap < 1");
+  }
+  if (allowedLateness < 0) {
+    throw new IllegalArgumentException("allowedLateness < 0");
+  }
+  var supplier = collector.supplier();
+  var accumulator = collector.accumulator();
+  var combiner = collector.combiner();
+  var finisher = collector.finisher();
+  class Session {
+    long start;
+    long end;  // timestamp of the last element + gap
+    A container;
+
+    Session(long start, long end, A container) {
+      this.start = start;
+      this.end = end;
+      this.container = container;
+    }
+  }
+  class State {
+    final TreeMap<Long, Session> sessions = new TreeMap<>();  // the open sessions by start, they do not overlap
+    long watermark = Long.MIN_VALUE;
+
+    boolean pushClosedSessions(Gatherer.Downstream<? super Window<R>> downstream) {
+      for (;;) {
+        var entry = sessions.firstEntry();
+        if (entry == null || entry.getValue().end > watermark) {
+          return true;
+        }
+        sessions.pollFirstEntry();
+        var session = entry.getValue();
+        if (!downstream.push(new Window<>(session.start, session.end, finisher.apply(session.container)))) {
+          return false;
+        }
+      }
+    }
+  }
+  return Gatherer.ofSequential(
+      State::new,
+      Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+        var time = timestamp.applyAsLong(element);
+        if (time < state.watermark) {
+          return true;  // too late, a session containing this element may have been pushed already
+        }
+        var session = new Session(time, time + gap, null);
+        // merge the sessions that overlap [time, time + gap[, the ones that start before time + gap
+        // and end after time, as the sessions do not overlap, their ends are sorted too
+        for (var iterator = state.sessions.headMap(time + gap, false).descendingMap().values().iterator(); iterator.hasNext();) {
+          var other = iterator.next();
+          if (other.end <= time) {
+            break;
+          }
+          iterator.remove();
+          session.start = Math.min(session.start, other.start);
+          session.end = Math.max(session.end, other.end);
+          session.container = session.container == null ? other.container : combiner.apply(other.container, session.container);
+        }
+        if (session.container == null) {
+          session.container = supplier.get();
+        }
+        accumulator.accept(session.container, element);
+        state.sessions.put(session.start, session);
+        state.watermark = Math.max(state.watermark, time - allowedLateness);
+        return state.pushClosedSessions(downstream);
+      }),
+      (state, downstream) -> {
+        state.watermark = Long.MAX_VALUE;
+        state.pushClosedSessions(downstream);
+      }
+  );
+}
+
+record Event(long time, String name) {}
+
+void main() {
+  var events = List.of(
+      new Event(1, "a"), new Event(3, "b"), new Event(12, "c"), new Event(8, "d"),  // d is out of order
+      new Event(14, "e"), new Event(31, "f"), new Event(2, "g"),                     // g is too late
+      new Event(33, "h"), new Event(45, "i"));
+
+  System.out.println(events.stream()
+      .gather(tumbling(Event::time, 10, 5, Collectors.mapping(Event::name, Collectors.joining())))
+      .toList());
+  System.out.println(events.stream()
+      .gather(hopping(Event::time, 10, 5, 5, Collectors.counting()))
+      .toList());
+  System.out.println(events.stream()
+      .gather(session(Event::time, 5, 5, Collectors.mapping(Event::name, Collectors.toList())))
+      .toList());
+
+  // 4 arrives after the session [0, 5[ was pushed, it is dropped and not merged with [5, 10[
+  System.out.println(Stream.of(new Event(0, "a"), new Event(5, "b"), new Event(4, "c"))
+      .gather(session(Event::time, 5, 0, Collectors.mapping(Event::name, Collectors.toList())))
+      .toList());
+
+  // the windows are pushed before the end of an infinite stream
+  var random = new Random(0);
+  System.out.println(Stream.iterate(0L, time -> time + random.nextLong(100))
+      .map(time -> new Event(Math.max(0, time - random.nextLong(50)), "x"))
+      .gather(tumbling(Event::time, 1_000, 50, Collectors.counting()))
+      .limit(3)
+      .toList());
+}
@@ -0,0 +1,238 @@
+// sorted(comparator).limit(k) sorts the whole stream to keep only k elements.
+// bottomK() keeps the k smallest elements of each split in a bounded heap (the root is the largest of them,
+// so a new element only has to be compared to the root), the combiner merges the heaps
+// like _14_reduce merges the counters, and the finisher pushes the k elements in order.
+// To push exactly the same elements as the stable sort, an element is ranked by the comparator
+// then by its position in the stream. As in _28_findIndex_parallel, a split only knows the positions
+// relative to its start, so the combiner shifts the positions of the right split by the count of the left split.
+// topK() is bottomK() with the comparator reversed.
+// bottomKByLong() and topKByLong() use a long key and a heap of primitive arrays.
+
+record Entry<E>(E element, long position) {}
+
+<T> Gatherer<T, ?, T> bottomK(int k, Comparator<? super T> comparator) {
+  if (k < 0) {
+    throw new IllegalArgumentException("k < 0");
+  }
+  Objects.requireNonNull(comparator);
+  Comparator<Entry<T>> ranking = Comparator.<Entry<T>, T>comparing(Entry::element, comparator)
+      .thenComparingLong(Entry::position);
+  class State {
+    final PriorityQueue<Entry<T>> heap = new PriorityQueue<>(ranking.reversed());  // the root is the last kept
+    long count;
+
+    void add(T element, long position) {
+      if (heap.size() < k) {
+        heap.add(new Entry<>(element, position));
+        return;
+      }
+      // the entries of the right split are not added in stream order, so a tie is resolved by the positions
+      if (k == 0) {
+        return;
+      }
+      var root = heap.peek();
+      var order = comparator.compare(element, root.element());
+      if (order < 0 || (order == 0 && position < root.position())) {
+        heap.poll();
+        heap.add(new Entry<>(element, position));
+      }
+    }
+  }
+  return Gatherer.of(
+      State::new,
+      Gatherer.Integrator.ofGreedy((state, element, _) -> {
+        state.add(element, state.count++);
+        return true;
+      }),
+      (s1, s2) -> {
+        for (var entry : s2.heap) {
+          s1.add(entry.element(), s1.count + entry.position());
+        }
+        s1.count += s2.count;
+        return s1;
+      },
+      (state, downstream) -> {
+        var entries = new ArrayList<>(state.heap);
+        entries.sort(ranking);
+        for (var entry : entries) {
+          if (!downstream.push(entry.element())) {
+            return;
+          }
+        }
+      }
+  );
+}
+
+<T> Gatherer<T, ?, T> topK(int k, Comparator<? super T> comparator) {
+  Objects.requireNonNull(comparator);
+  return bottomK(k, comparator.reversed());
+}
+
+// a binary heap of (key, position, element), the root is the element ranked last
+static final class LongKeyHeap<T> {
+  private final boolean reversed;
+  private final long[] keys;
+  private final long[] positions;
+  private final Object[] elements;
+  private int size;
+
+  LongKeyHeap(int capacity, boolean reversed) {
+    this.reversed = reversed;
+    keys = new long[capacity];
+    positions = new long[capacity];
+    elements = new Object[capacity];
+  }
+
+  private boolean before(int index1, int index2) {
+    var key1 = keys[index1];
+    var key2 = keys[index2];
+    if (key1 != key2) {
+      return reversed ? key1 > key2 : key1 < key2;
+    }
+    return positions[index1] < positions[index2];
+  }
+
+  private void swap(int index1, int index2) {
+    var key = keys[index1]; keys[index1] = keys[index2]; keys[index2] = key;
+    var position = positions[index1]; positions[index1] = positions[index2]; positions[index2] = position;
+    var element = elements[index1]; elements[index1] = elements[index2]; elements[index2] = element;
+  }
+
+  private void siftUp(int index) {
+    while (index > 0) {
+      var parent = (index - 1) >>> 1;
+      if (!before(parent, index)) {
+        return;
+      }
+      swap(parent, index);
+      index = parent;
+    }
+  }
+
+  private void siftDown(int index) {
+    for (;;) {
+      var child = (index << 1) + 1;
+      if (child >= size) {
+        return;
+      }
+      if (child + 1 < size && before(child, child + 1)) {
+        child++;
+      }
+      if (!before(index, child)) {
+        return;
+      }
+      swap(index, child);
+      index = child;
+    }
+  }
+
+  void add(long key, long position, T element) {
+    if (size < keys.length) {
+      keys[size] = key;
+      positions[size] = position;
+      elements[size] = element;
+      siftUp(size++);
+      return;
+    }
+    // the entries of the right split are not added in stream order, so a tie is resolved by the positions
+    if (size != 0 && (key != keys[0] ? (reversed ? key > keys[0] : key < keys[0]) : position < positions[0])) {
+      keys[0] = key;
+      positions[0] = position;
+      elements[0] = element;
+      siftDown(0);
+    }
+  }
+
+  void addAll(LongKeyHeap<T> heap, long offset) {
+    for (var i = 0; i < heap.size; i++) {
+      @SuppressWarnings("unchecked")
+      var element = (T) heap.elements[i];
+      add(heap.keys[i], heap.positions[i] + offset, element);
+    }
+  }
+
+  // empties the heap
+  @SuppressWarnings("unchecked")
+  T[] drainSorted() {
+    var result = (T[]) new Object[size];
+    while (size != 0) {
+      result[size - 1] = (T) elements[0];
+      swap(0, --size);
+      elements[size] = null;
+      siftDown(0);
+    }
+    return result;
+  }
+}
+
+<T> Gatherer<T, ?, T> bottomKByLong(int k, ToLongFunction<? super T> keyExtractor) {
+  return kByLong(k, keyExtractor, false);
+}
+
+<T> Gatherer<T, ?, T> topKByLong(int k, ToLongFunction<? super T> keyExtractor) {
+  return kByLong(k, keyExtractor, true);
+}
+
+<T> Gatherer<T, ?, T> kByLong(int k, ToLongFunction<? super T> keyExtractor, boolean reversed) {
+  if (k < 0) {
+    throw new IllegalArgumentException("k < 0");
+  }
+  Objects.requireNonNull(keyExtractor);
+  class State {
+    final LongKeyHeap<T> heap = new LongKeyHeap<>(k, reversed);
+    long count;
+  }
+  return Gatherer.of(
+      State::new,
+      Gatherer.Integrator.ofGreedy((state, element, _) -> {
+        state.heap.add(keyExtractor.applyAsLong(element), state.count++, element);
+        return true;
+      }),
+      (s1, s2) -> {
+        s1.heap.addAll(s2.heap, s1.count);
+        s1.count += s2.count;
+        return s1;
+      },
+      (state, downstream) -> {
+        for (var element : state.heap.drainSorted()) {
+          if (!downstream.push(element)) {
+            return;
+          }
+        }
+      }
+  );
+}
+
+void main() {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      item12
+      """;
+
+  System.out.println(text.lines().parallel().gather(topK(2, Comparator.naturalOrder())).toList());
+  System.out.println(text.lines().parallel().gather(bottomKByLong(3, String::length)).toList());
+
+  var list = new Random(0).ints(1_000_000, 0, 10_000).boxed().toList();
+  Comparator<Integer> byLastDigit = Comparator.comparingInt(v -> v % 10);
+  System.out.println(list.parallelStream().gather(topK(100, byLastDigit)).toList()
+      .equals(list.stream().sorted(byLastDigit.reversed()).limit(100).toList()));
+  System.out.println(list.parallelStream().gather(bottomK(100, byLastDigit)).toList()
+      .equals(list.stream().sorted(byLastDigit).limit(100).toList()));
+  System.out.println(list.parallelStream().gather(topKByLong(100, v -> v % 10)).toList()
+      .equals(list.stream().sorted(byLastDigit.reversed()).limit(100).toList()));
+  System.out.println(list.parallelStream().gather(bottomKByLong(100, v -> v)).toList()
+      .equals(list.stream().sorted().limit(100).toList()));
+
+  // a lot of ties and splits smaller than k
+  var ties = IntStream.range(0, 1_000).boxed().toList();
+  Comparator<Integer> byParity = Comparator.comparingInt(v -> v % 2);
+  System.out.println(ties.parallelStream().gather(bottomK(300, byParity)).toList()
+      .equals(ties.stream().sorted(byParity).limit(300).toList()));
+  System.out.println(ties.parallelStream().gather(bottomKByLong(300, v -> v % 2)).toList()
+      .equals(ties.stream().sorted(byParity).limit(300).toList()));
+  System.out.println(ties.parallelStream().gather(topKByLong(300, _ -> 0)).toList()
+      .equals(ties.subList(0, 300)));
+}
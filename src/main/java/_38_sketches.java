@@ -0,0 +1,170 @@
+// distinct() keeps all the elements seen in a HashSet, so the memory grows with the number of distinct elements.
+// The sketches below use a fixed amount of memory decided upfront, and do not allocate when an element is integrated,
+// in exchange the result is approximate.
+// - approximateDistinct() uses a Bloom filter, an element is pushed if one of its bits is not set yet,
+//   so a duplicate is never pushed but a distinct element may be dropped (with the probability fpp).
+//   The gatherer is sequential because whether an element is the first of its kind depends on all the elements before.
+// - cardinality() uses a HyperLogLog, it estimates the number of distinct elements with a standard error
+//   of 1.04 / sqrt(2^precision), two HyperLogLogs are merged by keeping the max of each register,
+//   so like _14_reduce, it works in parallel.
+// The elements are hashed with hashCode() (only 32 bits), or by a 64 bits hash function (for example a long id).
+
+static long mix(long hash) {  // fmix64 of MurmurHash3
+  hash ^= hash >>> 33;
+  hash *= 0xff51afd7ed558ccdL;
+  hash ^= hash >>> 33;
+  hash *= 0xc4ceb9fe1a85ec53L;
+  hash ^= hash >>> 33;
+  return hash;
+}
+
+static final class BloomFilter {
+  private final long[] words;
+  private final long bitCount;
+  private final int hashCount;
+
+  static void checkArguments(long expectedInsertions, double fpp) {
+    if (expectedInsertions < 1) {
+      throw new IllegalArgumentException("expectedInsertions < 1");
+    }
+    if (!(fpp > 0 && fpp < 1)) {
+      throw new IllegalArgumentException("fpp not in ]0, 1[");
+    }
+  }
+
+  BloomFilter(long expectedInsertions, double fpp) {
+    checkArguments(expectedInsertions, fpp);
+    var bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+    words = new long[Math.toIntExact(Math.max(1, (bits + 63) >>> 6))];
+    bitCount = (long) words.length << 6;
+    hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+  }
+
+  // returns true if at least one bit was not set
+  boolean add(long hash) {
+    var h1 = (int) hash;
+    var h2 = (int) (hash >>> 32);
+    var added = false;
+    for (var i = 0; i < hashCount; i++) {
+      var combined = (h1 + (long) i * h2) & Long.MAX_VALUE;
+      var bit = combined % bitCount;
+      var index = (int) (bit >>> 6);
+      var mask = 1L << bit;
+      var word = words[index];
+      if ((word & mask) == 0) {
+        words[index] = word | mask;
+        added = true;
+      }
+    }
+    return added;
+  }
+}
+
+<T> Gatherer<T, ?, T> approximateDistinct(long expectedInsertions, double fpp) {
+  return approximateDistinctBy(element -> element.hashCode(), expectedInsertions, fpp);
+}
+
+<T> Gatherer<T, ?, T> approximateDistinctBy(ToLongFunction<? super T> hashFunction, long expectedInsertions, double fpp) {
+  Objects.requireNonNull(hashFunction);
+  BloomFilter.checkArguments(expectedInsertions, fpp);
+  return Gatherer.ofSequential(
+      () -> new BloomFilter(expectedInsertions, fpp),
+      Gatherer.Integrator.ofGreedy((filter, element, downstream) -> {
+        if (filter.add(mix(hashFunction.applyAsLong(element)))) {
+          return downstream.push(element);
+        }
+        return true;
+      })
+  );
+}
+
+static final class HyperLogLog {
+  private final byte[] registers;
+  private final int precision;
+
+  static void checkPrecision(int precision) {
+    if (precision < 4 || precision > 18) {
+      throw new IllegalArgumentException("precision not in [4, 18]");
+    }
+  }
+
+  HyperLogLog(int precision) {
+    checkPrecision(precision);
+    this.precision = precision;
+    registers = new byte[1 << precision];
+  }
+
+  void add(long hash) {
+    var index = (int) (hash >>> (64 - precision));
+    var rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+    if (rank > registers[index]) {
+      registers[index] = rank;
+    }
+  }
+
+  HyperLogLog merge(HyperLogLog hyperLogLog) {
+    for (var i = 0; i < registers.length; i++) {
+      registers[i] = (byte) Math.max(registers[i], hyperLogLog.registers[i]);
+    }
+    return this;
+  }
+
+  long estimate() {
+    var m = registers.length;
+    var sum = 0.0;
+    var zeros = 0;
+    for (var register : registers) {
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    var alpha = switch (m) {
+      case 16 -> 0.673;
+      case 32 -> 0.697;
+      case 64 -> 0.709;
+      default -> 0.7213 / (1 + 1.079 / m);
+    };
+    var estimate = alpha * m * m / sum;
+    if (estimate <= 2.5 * m && zeros != 0) {
+      estimate = m * Math.log((double) m / zeros);  // linear counting for the small cardinalities
+    }
+    return Math.round(estimate);
+  }
+}
+
+<T> Gatherer<T, ?, Long> cardinality(int precision) {
+  return cardinalityBy(element -> element.hashCode(), precision);
+}
+
+<T> Gatherer<T, ?, Long> cardinalityBy(ToLongFunction<? super T> hashFunction, int precision) {
+  Objects.requireNonNull(hashFunction);
+  HyperLogLog.checkPrecision(precision);
+  return Gatherer.of(
+      () -> new HyperLogLog(precision),
+      Gatherer.Integrator.ofGreedy((hyperLogLog, element, _) -> {
+        hyperLogLog.add(mix(hashFunction.applyAsLong(element)));
+        return true;
+      }),
+      HyperLogLog::merge,
+      (hyperLogLog, downstream) -> downstream.push(hyperLogLog.estimate())
+  );
+}
+
+void main() {
+  var text = """
+      item1
+      item2
+      item1
+      item12
+      item2
+      """;
+
+  System.out.println(text.lines().gather(approximateDistinct(100, 0.01)).toList());
+  System.out.println(text.lines().gather(cardinality(10)).findFirst().orElseThrow());
+
+  var ids = new Random(0).longs(10_000_000, 0, 1_000_000).boxed().toList();
+  System.out.println("exact " + ids.parallelStream().distinct().count());
+  System.out.println("bloom filter " + ids.stream().gather(approximateDistinctBy((Long id) -> id, 1_000_000, 0.01)).count());
+  System.out.println("hyperloglog " + ids.parallelStream().gather(cardinalityBy((Long id) -> id, 14)).findFirst().orElseThrow());
+}
@@ -0,0 +1,157 @@
+// Writing the elements one by one (with a BufferedWriter) copies each record several times and does one
+// system call every 8 KB.
+// gatheringWrite() encodes the records directly into a fixed set of direct ByteBuffers,
+// allocated once and reused for all the batches, and writes a batch with one vectored write
+// GatheringByteChannel.write(ByteBuffer[]) (we are all to gather !).
+// A batch is written when maxRecords records are encoded, when the buffers are full (so at most
+// bufferCount * bufferSize bytes) or when maxDelay has elapsed since its first record
+// (the time is only checked when an element arrives), then a BatchAck is pushed.
+// The channel is not closed by the gatherer.
+
+record BatchAck(long batch, int records, long bytes) {}
+
+<T> Gatherer<T, ?, BatchAck> gatheringWrite(GatheringByteChannel channel, BiConsumer<? super T, ? super ByteBuffer> encoder,
+                                             int bufferSize, int bufferCount, int maxRecords, Duration maxDelay) {
+  Objects.requireNonNull(channel);
+  Objects.requireNonNull(encoder);
+  Objects.requireNonNull(maxDelay);
+  if (bufferSize < 1 || bufferCount < 1 || maxRecords < 1) {
+    throw new IllegalArgumentException("bufferSize, bufferCount or maxRecords < 1");
+  }
+  var maxDelayNanos = maxDelay.toNanos();
+  class State {
+    final ByteBuffer[] buffers = new ByteBuffer[bufferCount];
+    int current;  // the index of the buffer being filled
+    int records;
+    long batch;
+    long batchStart;
+
+    State() {
+      for (var i = 0; i < buffers.length; i++) {
+        buffers[i] = ByteBuffer.allocateDirect(bufferSize);
+      }
+    }
+
+    // returns false if there is no room in the buffers
+    boolean encode(T element) {
+      for (;;) {
+        var buffer = buffers[current];
+        var position = buffer.position();
+        try {
+          encoder.accept(element, buffer);
+          return true;
+        } catch (BufferOverflowException e) {
+          buffer.position(position);
+          if (position == 0) {
+            throw new IllegalArgumentException("record too big for a buffer of size " + bufferSize, e);
+          }
+          if (current == buffers.length - 1) {
+            return false;
+          }
+          current++;
+        }
+      }
+    }
+
+    boolean add(T element, Gatherer.Downstream<? super BatchAck> downstream) {
+      if (records == 0) {
+        batchStart = System.nanoTime();
+      }
+      if (!encode(element)) {
+        if (!flush(downstream)) {
+          return false;
+        }
+        batchStart = System.nanoTime();
+        if (!encode(element)) {
+          throw new AssertionError();
+        }
+      }
+      records++;
+      if (records == maxRecords || System.nanoTime() - batchStart >= maxDelayNanos) {
+        return flush(downstream);
+      }
+      return true;
+    }
+
+    boolean flush(Gatherer.Downstream<? super BatchAck> downstream) {
+      if (records == 0) {
+        return true;
+      }
+      var length = current + 1;
+      var bytes = 0L;
+      for (var i = 0; i < length; i++) {
+        bytes += buffers[i].flip().remaining();
+      }
+      try {
+        var written = 0L;
+        while (written < bytes) {
+          written += channel.write(buffers, 0, length);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      for (var i = 0; i < length; i++) {
+        buffers[i].clear();
+      }
+      var ack = new BatchAck(batch++, records, bytes);
+      current = 0;
+      records = 0;
+      return downstream.push(ack);
+    }
+  }
+  return Gatherer.ofSequential(
+      State::new,
+      Gatherer.Integrator.ofGreedy((state, element, downstream) -> state.add(element, downstream)),
+      (state, downstream) -> state.flush(downstream)
+  );
+}
+
+// encodes a string followed by '\n' in UTF-8, without allocation if the string is ASCII
+static void putLine(String line, ByteBuffer buffer) {
+  var length = line.length();
+  if (buffer.remaining() < length + 1) {
+    throw new BufferOverflowException();
+  }
+  for (var i = 0; i < length; i++) {
+    var c = line.charAt(i);
+    if (c >= 0x80) {
+      var position = buffer.position() - i;
+      buffer.position(position);
+      buffer.put(line.getBytes(StandardCharsets.UTF_8)).put((byte) '\n');
+      return;
+    }
+    buffer.put((byte) c);
+  }
+  buffer.put((byte) '\n');
+}
+
+void main() throws IOException {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      item12
+      """;
+
+  var path = Files.createTempFile("gathering-write", ".txt");
+  try {
+    try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      var acks = text.lines()
+          .gather(gatheringWrite(channel, (line, buffer) -> putLine(line, buffer), 8, 2, 3, Duration.ofSeconds(1)))
+          .toList();
+      System.out.println(acks);
+    }
+    System.out.println(Files.readString(path).equals(text));
+
+    try (var channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      var batches = IntStream.range(0, 1_000_000)
+          .mapToObj(i -> "line " + i)
+          .gather(gatheringWrite(channel, (line, buffer) -> putLine(line, buffer), 64 * 1024, 16, 100_000, Duration.ofMillis(100)))
+          .count();
+      System.out.println(batches + " batches, " + Files.size(path) + " bytes");
+    }
+  } finally {
+    Files.delete(path);
+  }
+}
@@ -0,0 +1,322 @@
+// Stream.gather() pulls the elements, java.util.concurrent.Flow pushes them.
+// asProcessor() runs any gatherer as a Flow.Processor
+// - onNext() calls the integrator, the pushed elements are queued until the subscriber requests them,
+//   if the integrator returns false (or the subscriber cancelled), the upstream subscription is cancelled,
+//   if the integrator or the finisher throws an exception, the upstream subscription is cancelled
+//   and the exception is sent to the subscriber with onError() (onNext() returns normally, rule 2.13),
+// - onComplete() calls the finisher, then completes the subscriber once the queue is drained,
+// - the upstream elements are requested by batches of batchSize, and only when the subscriber has some demand
+//   and the queue holds less than batchSize elements, so a slow subscriber slows down the publisher.
+// The upstream signals are serialized (rule 1.3 of the spec), so the state of the gatherer is not shared,
+// the elements are sent to the subscriber by a drain loop that can run in the upstream thread
+// or in the thread calling request(), the drain loop is also the only one calling request() and cancel()
+// on the upstream subscription, so they are called serially (rule 2.7).
+
+<T, R> Flow.Processor<T, R> asProcessor(Gatherer<T, ?, R> gatherer, int batchSize) {
+  return _asProcessor(gatherer, batchSize);
+}
+
+<T, A, R> Flow.Processor<T, R> _asProcessor(Gatherer<T, A, R> gatherer, int batchSize) {
+  Objects.requireNonNull(gatherer);
+  if (batchSize < 1) {
+    throw new IllegalArgumentException("batchSize < 1");
+  }
+  var integrator = gatherer.integrator();
+  var finisher = gatherer.finisher();
+  class GathererProcessor implements Flow.Processor<T, R>, Flow.Subscription, Gatherer.Downstream<R> {
+    private final A state = gatherer.initializer().get();
+    private final ConcurrentLinkedQueue<R> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicLong outstanding = new AtomicLong();  // requested from upstream but not received yet
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super R> subscriber;
+    private volatile boolean cancelled;
+    private volatile boolean cancelUpstream;  // the upstream is cancelled by the drain loop
+    private volatile boolean done;  // no more elements will be queued
+    private volatile Throwable error;
+    private boolean stopped;  // only accessed by the upstream signals
+    private boolean terminated;  // only accessed by the drain loop
+    private boolean upstreamCancelled;  // only accessed by the drain loop
+
+    // Flow.Publisher
+    @Override
+    public void subscribe(Flow.Subscriber<? super R> subscriber) {
+      Objects.requireNonNull(subscriber);
+      if (!subscribed.compareAndSet(false, true)) {
+        subscriber.onSubscribe(new Flow.Subscription() {
+          @Override
+          public void request(long n) {}
+          @Override
+          public void cancel() {}
+        });
+        subscriber.onError(new IllegalStateException("only one subscriber is supported"));
+        return;
+      }
+      this.subscriber = subscriber;
+      subscriber.onSubscribe(this);
+      drain();
+    }
+
+    // Flow.Subscription, used by the subscriber
+    @Override
+    public void request(long n) {
+      if (n <= 0) {  // rule 3.9
+        cancelUpstream = true;
+        error = new IllegalArgumentException("request " + n + " <= 0");
+        done = true;
+        drain();
+        return;
+      }
+      demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      cancelUpstream = true;
+      drain();
+    }
+
+    // Gatherer.Downstream, used by the integrator and the finisher
+    @Override
+    public boolean push(R element) {
+      if (cancelled) {
+        return false;
+      }
+      queue.offer(element);
+      queueSize.incrementAndGet();
+      return true;
+    }
+
+    @Override
+    public boolean isRejecting() {
+      return cancelled;
+    }
+
+    // Flow.Subscriber
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      Objects.requireNonNull(subscription);
+      if (upstream != null) {
+        subscription.cancel();  // rule 2.5
+        return;
+      }
+      upstream = subscription;
+      drain();
+    }
+
+    @Override
+    public void onNext(T item) {
+      Objects.requireNonNull(item);
+      outstanding.decrementAndGet();
+      if (stopped) {
+        return;
+      }
+      try {
+        if (!integrator.integrate(state, item, this)) {
+          stopped = true;
+          cancelUpstream = true;
+          finisher.accept(state, this);
+          done = true;
+        }
+      } catch (RuntimeException | Error e) {  // rule 2.13, onNext() must return normally
+        stopped = true;
+        cancelUpstream = true;
+        error = e;
+        done = true;
+      }
+      drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      Objects.requireNonNull(throwable);
+      if (stopped) {
+        return;
+      }
+      stopped = true;
+      error = throwable;
+      done = true;
+      drain();
+    }
+
+    @Override
+    public void onComplete() {
+      if (stopped) {
+        return;
+      }
+      stopped = true;
+      try {
+        finisher.accept(state, this);
+      } catch (RuntimeException | Error e) {
+        error = e;
+      }
+      done = true;
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      var missed = 1;
+      do {
+        if (cancelUpstream && !upstreamCancelled) {  // rule 2.7, request() and cancel() are called serially
+          var upstream = this.upstream;
+          if (upstream != null) {
+            upstreamCancelled = true;
+            upstream.cancel();
+          }
+        }
+        var subscriber = this.subscriber;
+        if (subscriber != null && !terminated) {
+          if (cancelled) {
+            queue.clear();
+            terminated = true;
+          } else {
+            R element;
+            while (demand.get() > 0 && (element = queue.poll()) != null) {
+              queueSize.decrementAndGet();
+              demand.decrementAndGet();
+              subscriber.onNext(element);
+            }
+            if (done && queue.isEmpty()) {
+              terminated = true;
+              var error = this.error;
+              if (error != null) {
+                subscriber.onError(error);
+              } else {
+                subscriber.onComplete();
+              }
+            } else {
+              requestUpstream();
+            }
+          }
+        }
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void requestUpstream() {
+      var upstream = this.upstream;
+      if (upstream == null || done || cancelUpstream || demand.get() == 0 || queueSize.get() >= batchSize) {
+        return;
+      }
+      var outstanding = this.outstanding.get();
+      if (outstanding > batchSize / 2) {
+        return;
+      }
+      var n = batchSize - outstanding;
+      this.outstanding.addAndGet(n);
+      upstream.request(n);
+    }
+  }
+  return new GathererProcessor();
+}
+
+<T> Gatherer<T, ?, T> filter(Predicate<? super T> predicate) {
+  return Gatherer.of(Gatherer.Integrator.ofGreedy((_, element, downstream) -> {
+    if (predicate.test(element)) {
+      return downstream.push(element);
+    }
+    return true;
+  }));
+}
+
+<T> Gatherer<T, ?, T> limit(int maxSize) {
+  return Gatherer.ofSequential(
+      () -> new Object() { int counter; },
+      (state, element, downstream) -> {
+        if (state.counter++ == maxSize) {
+          return false;
+        }
+        return downstream.push(element);
+      });
+}
+
+<T> List<T> subscribeAndWait(Flow.Publisher<T> publisher, long request) throws InterruptedException {
+  var list = new ArrayList<T>();
+  var latch = new CountDownLatch(1);
+  publisher.subscribe(new Flow.Subscriber<>() {
+    private Flow.Subscription subscription;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(request);
+    }
+
+    @Override
+    public void onNext(T item) {
+      list.add(item);
+      subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      System.out.println("onError " + throwable);
+      latch.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      latch.countDown();
+    }
+  });
+  latch.await();
+  return list;
+}
+
+void main() throws InterruptedException {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      item12
+      """;
+
+  try (var publisher = new SubmissionPublisher<String>()) {
+    var processor = asProcessor(filter((String s) -> s.startsWith("item")).andThen(Gatherers.windowFixed(2)), 16);
+    publisher.subscribe(processor);
+    var thread = Thread.ofPlatform().start(() -> {
+      text.lines().forEach(publisher::submit);
+      publisher.close();
+    });
+    System.out.println(subscribeAndWait(processor, 1));
+    thread.join();
+  }
+
+  try (var publisher = new SubmissionPublisher<Integer>()) {
+    var processor = asProcessor(limit(5), 4);
+    publisher.subscribe(processor);
+    var thread = Thread.ofPlatform().start(() -> {
+      for (var i = 0; i < 1_000_000 && !publisher.getSubscribers().isEmpty(); i++) {  // stops when cancelled
+        publisher.submit(i);
+      }
+      publisher.close();
+    });
+    System.out.println(subscribeAndWait(processor, 2));
+    thread.join();
+  }
+
+  try (var publisher = new SubmissionPublisher<String>()) {
+    var processor = asProcessor(filter((String s) -> {
+      if (s.equals("--")) {
+        throw new IllegalStateException("not an item " + s);
+      }
+      return true;
+    }), 16);
+    publisher.subscribe(processor);
+    var thread = Thread.ofPlatform().start(() -> {
+      text.lines().forEach(publisher::submit);
+      publisher.close();
+    });
+    System.out.println(subscribeAndWait(processor, 1));
+    thread.join();
+  }
+}
@@ -0,0 +1,225 @@
+// _1_filter, _2_take_while or the header predicate of windowBy need a String for each line,
+// even if most of the lines are rejected.
+// filterLines() takes the input as chunks of bytes (ByteBuffer), finds the newlines directly in the bytes
+// and tests each line through a reusable CharSequence view on the bytes, so nothing is allocated for a rejected line,
+// a String is only created (decoded with the charset) for the lines that are kept.
+// The view maps each byte to a char (like ISO-8859-1), so it is exact for ASCII and lets the predicates
+// match ASCII prefixes/suffixes of UTF-8 lines, the kept lines are decoded correctly.
+// Only works with charsets where '\n' is always encoded as a single byte (UTF-8, ASCII, ISO-8859-1),
+// the other charsets (UTF-16 by example) are rejected.
+// The gatherer does not keep a reference to the chunks (the end of a line that spans two chunks is copied),
+// so chunks() can reuse the same ByteBuffer for all the chunks (its spliterator is ORDERED and is never split).
+
+static final class ByteLine implements CharSequence {
+  private final Charset charset;
+  private ByteBuffer buffer;
+  private int start;
+  private int length;
+  private byte[] scratch = new byte[128];
+
+  ByteLine(Charset charset) {
+    this.charset = charset;
+  }
+
+  void set(ByteBuffer buffer, int start, int length) {
+    this.buffer = buffer;
+    this.start = start;
+    this.length = length;
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    Objects.checkIndex(index, length);
+    return (char) (buffer.get(start + index) & 0xFF);
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    Objects.checkFromToIndex(start, end, length);
+    var line = new ByteLine(charset);
+    line.set(buffer, this.start + start, end - start);
+    return line;
+  }
+
+  @Override
+  public String toString() {
+    if (buffer.hasArray()) {
+      return new String(buffer.array(), buffer.arrayOffset() + start, length, charset);
+    }
+    if (scratch.length < length) {
+      scratch = new byte[Math.max(length, scratch.length << 1)];
+    }
+    buffer.get(start, scratch, 0, length);
+    return new String(scratch, 0, length, charset);
+  }
+}
+
+static boolean startsWith(CharSequence sequence, String prefix) {
+  var length = prefix.length();
+  if (sequence.length() < length) {
+    return false;
+  }
+  for (var i = 0; i < length; i++) {
+    if (sequence.charAt(i) != prefix.charAt(i)) {
+      return false;
+    }
+  }
+  return true;
+}
+
+static boolean endsWith(CharSequence sequence, String suffix) {
+  var length = suffix.length();
+  var offset = sequence.length() - length;
+  if (offset < 0) {
+    return false;
+  }
+  for (var i = 0; i < length; i++) {
+    if (sequence.charAt(offset + i) != suffix.charAt(i)) {
+      return false;
+    }
+  }
+  return true;
+}
+
+Gatherer<ByteBuffer, ?, String> filterLines(Charset charset, Predicate<? super CharSequence> predicate) {
+  Objects.requireNonNull(charset);
+  Objects.requireNonNull(predicate);
+  if (!charset.equals(StandardCharsets.UTF_8) && !charset.equals(StandardCharsets.US_ASCII)
+      && !charset.equals(StandardCharsets.ISO_8859_1)) {
+    throw new IllegalArgumentException("'\\n' may not be encoded as a single byte in " + charset);
+  }
+  class State {
+    final ByteLine line = new ByteLine(charset);
+    ByteBuffer carry = ByteBuffer.allocate(128);  // the beginning of a line that spans several chunks
+
+    boolean test(ByteBuffer buffer, int start, int end, Gatherer.Downstream<? super String> downstream) {
+      if (end > start && buffer.get(end - 1) == '\r') {
+        end--;
+      }
+      line.set(buffer, start, end - start);
+      if (predicate.test(line)) {
+        return downstream.push(line.toString());
+      }
+      return true;
+    }
+
+    void appendToCarry(ByteBuffer chunk, int start, int end) {
+      var length = end - start;
+      if (carry.remaining() < length) {
+        carry = ByteBuffer.allocate(Math.max(carry.capacity() << 1, carry.position() + length))
+            .put(carry.flip());
+      }
+      carry.put(carry.position(), chunk, start, length);
+      carry.position(carry.position() + length);
+    }
+
+    boolean integrate(ByteBuffer chunk, Gatherer.Downstream<? super String> downstream) {
+      var start = chunk.position();
+      var limit = chunk.limit();
+      for (var i = start; i < limit; i++) {
+        if (chunk.get(i) != '\n') {
+          continue;
+        }
+        if (carry.position() != 0) {
+          appendToCarry(chunk, start, i);
+          var result = test(carry, 0, carry.position(), downstream);
+          carry.clear();
+          if (!result) {
+            return false;
+          }
+        } else if (!test(chunk, start, i, downstream)) {
+          return false;
+        }
+        start = i + 1;
+      }
+      appendToCarry(chunk, start, limit);
+      return true;
+    }
+
+    void finish(Gatherer.Downstream<? super String> downstream) {
+      if (carry.position() != 0) {
+        test(carry, 0, carry.position(), downstream);
+      }
+    }
+  }
+  return Gatherer.ofSequential(
+      State::new,
+      Gatherer.Integrator.ofGreedy((state, chunk, downstream) -> state.integrate(chunk, downstream)),
+      (state, downstream) -> state.finish(downstream)
+  );
+}
+
+// the same direct ByteBuffer is used for all the chunks
+Stream<ByteBuffer> chunks(ReadableByteChannel channel, int chunkSize) {
+  Objects.requireNonNull(channel);
+  var buffer = ByteBuffer.allocateDirect(chunkSize);
+  // ordered and never split, a split would buffer the chunks but the buffer is reused
+  return StreamSupport.stream(new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+    @Override
+    public boolean tryAdvance(Consumer<? super ByteBuffer> action) {
+      buffer.clear();
+      int read;
+      try {
+        read = channel.read(buffer);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      if (read == -1) {
+        return false;
+      }
+      action.accept(buffer.flip());
+      return true;
+    }
+
+    @Override
+    public Spliterator<ByteBuffer> trySplit() {
+      return null;
+    }
+  }, false);
+}
+
+void main() throws IOException {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      élément1
+      item12""";
+
+  var bytes = text.getBytes(StandardCharsets.UTF_8);
+  var chunks = IntStream.range(0, (bytes.length + 6) / 7)  // chunks of 7 bytes
+      .mapToObj(i -> ByteBuffer.wrap(bytes, i * 7, Math.min(7, bytes.length - i * 7)));
+
+  var result = chunks
+      .gather(filterLines(StandardCharsets.UTF_8, line -> endsWith(line, "1")))
+      .toList();
+  System.out.println(result);
+  System.out.println(result.equals(text.lines().filter(s -> s.endsWith("1")).toList()));
+
+  try {
+    filterLines(StandardCharsets.UTF_16, line -> endsWith(line, "1"));
+  } catch (IllegalArgumentException e) {
+    System.out.println(e.getMessage());
+  }
+
+  var path = Files.createTempFile("byte-lines", ".log");
+  try {
+    Files.write(path, IntStream.range(0, 100_000)
+        .mapToObj(i -> (i % 100 == 0 ? "ERROR" : "INFO ") + " request " + i)
+        .toList());
+    try (var channel = FileChannel.open(path)) {
+      var errors = chunks(channel, 8192)
+          .gather(filterLines(StandardCharsets.UTF_8, line -> startsWith(line, "ERROR")))
+          .toList();
+      System.out.println(errors.size() + " " + errors.getLast());
+    }
+  } finally {
+    Files.delete(path);
+  }
+}
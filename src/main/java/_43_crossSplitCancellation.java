@@ -0,0 +1,154 @@
+// In a parallel stream, when the integrator of _3_limit, _2_take_while or _18_findIndex returns false,
+// only the current split stops, the other splits continue to compute elements that will be thrown away,
+// they can not stop because they do not know if they are before or after the cut-off point.
+// As in _28_findIndex_parallel, if each element comes with its position (indexed() on a random access list),
+// the splits can share the cut-off position and stop as soon as they go past it.
+// A stream can only be evaluated once, so the shared cut-off is created by indexed() and each element
+// has a reference to it (a gatherer can be evaluated several times, by example if it is stored
+// in a variable or composed with andThen(), so the cut-off can not be created by the gatherer).
+// The cut-off is updated with a CAS only when a split finds an earlier cut-off.
+// Only one short-circuiting gatherer can consume the elements of a stream created by indexed().
+// - limit(maxSize) stops a split at the position maxSize, nothing needs to be shared,
+// - takeWhile() shares the position of the first element that does not match the predicate,
+//   each split buffers its elements and the finisher only pushes the ones before the cut-off,
+// - findIndex() shares the position of the first match, like _28_findIndex_parallel.
+
+record Indexed<T>(long index, T element, AtomicLong cutoff) {}
+
+<T> Stream<Indexed<T>> indexed(List<T> list) {
+  Objects.requireNonNull(list);
+  var cutoff = new AtomicLong(Long.MAX_VALUE);  // one per stream, so one per evaluation
+  return IntStream.range(0, list.size()).mapToObj(i -> new Indexed<>(i, list.get(i), cutoff));
+}
+
+static void minimize(AtomicLong cutoff, long index) {
+  for (var current = cutoff.get(); index < current; current = cutoff.get()) {
+    if (cutoff.compareAndSet(current, index)) {
+      return;
+    }
+  }
+}
+
+<T> Gatherer<Indexed<T>, ?, T> limit(long maxSize) {
+  if (maxSize < 0) {
+    throw new IllegalArgumentException("maxSize < 0");
+  }
+  return Gatherer.of((_, indexed, downstream) -> {
+    if (indexed.index() >= maxSize) {
+      return false;
+    }
+    return downstream.push(indexed.element());
+  });
+}
+
+<T> Gatherer<Indexed<T>, ?, T> takeWhile(Predicate<? super T> predicate) {
+  Objects.requireNonNull(predicate);
+  class State {
+    AtomicLong cutoff;  // the cut-off of the stream, null if the split is empty
+    final ArrayList<ArrayList<Indexed<T>>> parts = new ArrayList<>();  // one part per split, in encounter order
+    final ArrayList<Indexed<T>> part = new ArrayList<>();
+
+    State() {
+      parts.add(part);
+    }
+  }
+  return Gatherer.of(
+      State::new,
+      (state, indexed, _) -> {
+        var cutoff = indexed.cutoff();
+        state.cutoff = cutoff;
+        var index = indexed.index();
+        if (index >= cutoff.get()) {
+          return false;  // there is already a cut-off before
+        }
+        if (!predicate.test(indexed.element())) {
+          minimize(cutoff, index);
+          return false;
+        }
+        state.part.add(indexed);
+        return true;
+      },
+      (s1, s2) -> {
+        if (s1.cutoff == null) {
+          s1.cutoff = s2.cutoff;
+        }
+        s1.parts.addAll(s2.parts);
+        return s1;
+      },
+      (state, downstream) -> {
+        if (state.cutoff == null) {
+          return;
+        }
+        var cutoff = state.cutoff.get();
+        for (var part : state.parts) {
+          for (var indexed : part) {
+            if (indexed.index() >= cutoff || !downstream.push(indexed.element())) {
+              return;
+            }
+          }
+        }
+      });
+}
+
+<T> Gatherer<Indexed<T>, ?, Long> findIndex(Predicate<? super T> predicate) {
+  Objects.requireNonNull(predicate);
+  class State {
+    AtomicLong first;  // the cut-off of the stream, null if the split is empty
+  }
+  return Gatherer.of(
+      State::new,
+      (state, indexed, _) -> {
+        var first = indexed.cutoff();
+        state.first = first;
+        var index = indexed.index();
+        if (index > first.get()) {
+          return false;  // there is already a match before
+        }
+        if (predicate.test(indexed.element())) {
+          minimize(first, index);
+          return false;
+        }
+        return true;
+      },
+      (s1, s2) -> s1.first != null ? s1 : s2,
+      (state, downstream) -> {
+        if (state.first == null) {
+          return;
+        }
+        var index = state.first.get();
+        if (index != Long.MAX_VALUE) {
+          downstream.push(index);
+        }
+      });
+}
+
+void main() {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      item12
+      """;
+
+  var lines = text.lines().toList();
+  System.out.println(indexed(lines).parallel().gather(limit(3)).toList());
+  System.out.println(indexed(lines).parallel().gather(takeWhile(s -> s.startsWith("item"))).toList());
+  System.out.println(indexed(lines).parallel().gather(findIndex(s -> s.endsWith("11"))).findFirst().orElse(-1L));
+
+  var integers = IntStream.range(0, 10_000_000).boxed().toList();
+  var calls = new LongAdder();
+  var prefix = indexed(integers).parallel()
+      .gather(takeWhile(v -> { calls.increment(); return v < 100_000; }))
+      .toList();
+  System.out.println(prefix.equals(integers.subList(0, 100_000)) + " " + calls.sum() + " predicate calls");
+  calls.reset();
+  System.out.println(indexed(integers).parallel()
+      .gather(findIndex(v -> { calls.increment(); return v == 100_000; }))
+      .findFirst().orElse(-1L) + " " + calls.sum() + " predicate calls");
+
+  // the same gatherer evaluated twice
+  var findFirstItem = findIndex((String s) -> s.startsWith("item"));
+  System.out.println(indexed(lines).parallel().gather(findFirstItem).findFirst().orElse(-1L));
+  System.out.println(indexed(List.of("--", "--", "item")).parallel().gather(findFirstItem).findFirst().orElse(-1L));
+}
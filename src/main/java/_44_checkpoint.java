@@ -0,0 +1,384 @@
+// If a long run of windowBy (_20), fold (_13) or reduce (_14) on a huge input crashes, everything is recomputed.
+// checkpointed() wraps a sequential gatherer and regularly takes a snapshot of its state (every n elements
+// or every duration, the time is only checked when an element arrives) with the offset of the input,
+// the number of elements consumed so far, and the number of elements pushed so far.
+// The state is encoded by a StateCodec synchronously (the state is mutable), into a byte array,
+// and the file is written asynchronously by a virtual thread, so the integrator does not wait for the disk.
+// If the previous snapshot is still being written, the new one is skipped.
+// Each snapshot is first written to its own temporary file then atomically renamed, so a crash while writing
+// keeps the previous snapshot. The file is deleted when the stream completes.
+// If a run fails, its last snapshot may still be being written, so a new run on the same file
+// and readCheckpoint() first wait for the writer of the previous run.
+// To resume, readCheckpoint() reads the last snapshot, the input has to restart at Checkpoint.offset()
+// and the gatherer starts with the state of the checkpoint.
+// The elements pushed after the last snapshot and before the crash are pushed again,
+// so the downstream has to truncate what it has received to Checkpoint.pushed() (or be idempotent).
+// A parallel reduce (_14) has no single offset, so it has to run sequentially to be checkpointed.
+
+record Checkpoint<A>(long offset, long pushed, A state) {}
+
+interface StateCodec<A> {
+  void write(A state, DataOutput output) throws IOException;
+  A read(DataInput input) throws IOException;
+}
+
+static final int CHECKPOINT_MAGIC = 0xCAFE_0001;
+static final int CHECKPOINT_MIN_LENGTH = 4 + 8 + 8 + 8;  // magic, offset, pushed, ..., crc
+
+// the writer thread of each checkpoint file, removed by the writer when it has finished
+static final ConcurrentHashMap<Path, Thread> CHECKPOINT_WRITERS = new ConcurrentHashMap<>();
+
+static void awaitCheckpointWriter(Path path) {
+  var writer = CHECKPOINT_WRITERS.get(path.toAbsolutePath());
+  if (writer == null) {
+    return;
+  }
+  try {
+    writer.join();
+  } catch (InterruptedException e) {
+    Thread.currentThread().interrupt();
+    throw new IllegalStateException(e);
+  }
+}
+
+<A> Optional<Checkpoint<A>> readCheckpoint(Path path, StateCodec<A> codec) throws IOException {
+  Objects.requireNonNull(path);
+  Objects.requireNonNull(codec);
+  awaitCheckpointWriter(path);
+  if (!Files.exists(path)) {
+    return Optional.empty();
+  }
+  var bytes = Files.readAllBytes(path);
+  if (bytes.length < CHECKPOINT_MIN_LENGTH) {
+    throw new IOException("corrupted checkpoint " + path);
+  }
+  var crc = new CRC32();
+  crc.update(bytes, 0, bytes.length - 8);
+  var input = new DataInputStream(new ByteArrayInputStream(bytes));
+  if (input.readInt() != CHECKPOINT_MAGIC || ByteBuffer.wrap(bytes, bytes.length - 8, 8).getLong() != crc.getValue()) {
+    throw new IOException("corrupted checkpoint " + path);
+  }
+  var offset = input.readLong();
+  var pushed = input.readLong();
+  return Optional.of(new Checkpoint<>(offset, pushed, codec.read(input)));
+}
+
+<T, A, R> Gatherer<T, ?, R> checkpointed(Gatherer<T, A, R> gatherer, StateCodec<A> codec, Optional<Checkpoint<A>> resume,
+                                         Path path, long everyElements, Duration every) {
+  Objects.requireNonNull(gatherer);
+  Objects.requireNonNull(codec);
+  Objects.requireNonNull(resume);
+  Objects.requireNonNull(path);
+  Objects.requireNonNull(every);
+  if (everyElements < 1) {
+    throw new IllegalArgumentException("everyElements < 1");
+  }
+  var everyNanos = every.toNanos();
+  var integrator = gatherer.integrator();
+  var finisher = gatherer.finisher();
+  var absolutePath = path.toAbsolutePath();
+  class State implements Gatherer.Downstream<R> {
+    final A state;
+    long offset;
+    long pushed;
+    long lastOffset;
+    long lastNanos = System.nanoTime();
+    Thread writer;
+    volatile IOException error;
+    Gatherer.Downstream<? super R> downstream;
+
+    State() {
+      awaitCheckpointWriter(absolutePath);
+      var checkpoint = resume.orElse(null);
+      if (checkpoint == null) {
+        state = gatherer.initializer().get();
+        return;
+      }
+      state = checkpoint.state();
+      offset = lastOffset = checkpoint.offset();
+      pushed = checkpoint.pushed();
+    }
+
+    @Override
+    public boolean push(R element) {
+      pushed++;
+      return downstream.push(element);
+    }
+
+    @Override
+    public boolean isRejecting() {
+      return downstream.isRejecting();
+    }
+
+    void checkError() {
+      var error = this.error;
+      if (error != null) {
+        throw new UncheckedIOException(error);
+      }
+    }
+
+    boolean integrate(T element, Gatherer.Downstream<? super R> downstream) {
+      checkError();
+      this.downstream = downstream;
+      var result = integrator.integrate(state, element, this);
+      offset++;
+      if (offset - lastOffset >= everyElements || System.nanoTime() - lastNanos >= everyNanos) {
+        snapshot();
+      }
+      return result;
+    }
+
+    void snapshot() {
+      lastOffset = offset;
+      lastNanos = System.nanoTime();
+      if (writer != null && writer.isAlive()) {
+        return;  // the previous snapshot is still being written
+      }
+      var bytes = new ByteArrayOutputStream();
+      var output = new DataOutputStream(bytes);
+      try {
+        output.writeInt(CHECKPOINT_MAGIC);
+        output.writeLong(offset);
+        output.writeLong(pushed);
+        codec.write(state, output);
+        var crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        output.writeLong(crc.getValue());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      var data = bytes.toByteArray();
+      writer = Thread.ofVirtual().unstarted(() -> {
+        try {
+          var temporary = Files.createTempFile(absolutePath.getParent(), absolutePath.getFileName().toString(), ".tmp");
+          try {
+            Files.write(temporary, data);
+            Files.move(temporary, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+          } finally {
+            Files.deleteIfExists(temporary);
+          }
+        } catch (IOException e) {
+          error = e;
+        } finally {
+          CHECKPOINT_WRITERS.remove(absolutePath, Thread.currentThread());
+        }
+      });
+      CHECKPOINT_WRITERS.put(absolutePath, writer);  // before start(), so the writer always removes its entry
+      writer.start();
+    }
+
+    void finish(Gatherer.Downstream<? super R> downstream) {
+      if (writer != null) {
+        try {
+          writer.join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        }
+      }
+      checkError();
+      this.downstream = downstream;
+      finisher.accept(state, this);
+      try {
+        Files.deleteIfExists(path);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+  return Gatherer.ofSequential(
+      State::new,
+      (state, element, downstream) -> state.integrate(element, downstream),
+      (state, downstream) -> state.finish(downstream)
+  );
+}
+
+// a fold with a state that can be checkpointed
+static final class Box<V> {
+  V value;
+
+  Box(V value) {
+    this.value = value;
+  }
+}
+
+<T, V> Gatherer<T, Box<V>, V> fold(Supplier<? extends V> initial, BiFunction<? super V, ? super T, ? extends V> folder) {
+  Objects.requireNonNull(initial);
+  Objects.requireNonNull(folder);
+  return Gatherer.ofSequential(
+      () -> new Box<>(initial.get()),
+      Gatherer.Integrator.ofGreedy((box, element, _) -> {
+        box.value = folder.apply(box.value, element);
+        return true;
+      }),
+      (box, downstream) -> downstream.push(box.value)
+  );
+}
+
+<V> StateCodec<Box<V>> boxCodec(StateCodec<V> codec) {
+  Objects.requireNonNull(codec);
+  return new StateCodec<>() {
+    @Override
+    public void write(Box<V> box, DataOutput output) throws IOException {
+      codec.write(box.value, output);
+    }
+
+    @Override
+    public Box<V> read(DataInput input) throws IOException {
+      return new Box<>(codec.read(input));
+    }
+  };
+}
+
+// windowBy of _20_gatherer_windowBy with a state that can be checkpointed
+record Section(String name, List<String> items) {}
+
+static final class WindowState {
+  String name;
+  List<String> container;
+}
+
+Gatherer<String, WindowState, Section> windowBy(Predicate<? super String> predicate) {
+  Objects.requireNonNull(predicate);
+  return Gatherer.ofSequential(
+      WindowState::new,
+      Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+        if (predicate.test(element)) {
+          if (state.container != null) {
+            if (!downstream.push(new Section(state.name, List.copyOf(state.container)))) {
+              return false;
+            }
+          }
+          state.container = new ArrayList<>();
+          state.name = element;
+          return true;
+        }
+        if (state.container == null) {
+          throw new IllegalStateException();
+        }
+        state.container.add(element);
+        return true;
+      }),
+      (state, downstream) -> {
+        if (state.container != null) {
+          downstream.push(new Section(state.name, List.copyOf(state.container)));
+        }
+      });
+}
+
+final StateCodec<WindowState> windowStateCodec = new StateCodec<>() {
+  @Override
+  public void write(WindowState state, DataOutput output) throws IOException {
+    output.writeBoolean(state.container != null);
+    if (state.container == null) {
+      return;
+    }
+    output.writeUTF(state.name);
+    output.writeInt(state.container.size());
+    for (var item : state.container) {
+      output.writeUTF(item);
+    }
+  }
+
+  @Override
+  public WindowState read(DataInput input) throws IOException {
+    var state = new WindowState();
+    if (!input.readBoolean()) {
+      return state;
+    }
+    state.name = input.readUTF();
+    var size = input.readInt();
+    state.container = new ArrayList<>(size);
+    for (var i = 0; i < size; i++) {
+      state.container.add(input.readUTF());
+    }
+    return state;
+  }
+};
+
+// simulates a crash of the process after maxElements elements
+<T> Gatherer<T, ?, T> killAfter(long maxElements) {
+  return Gatherer.ofSequential(
+      () -> new Object() { long count; },
+      Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+        if (state.count++ == maxElements) {
+          throw new IllegalStateException("killed");
+        }
+        return downstream.push(element);
+      }));
+}
+
+void main() throws IOException {
+  var lines = IntStream.range(0, 100_000)
+      .mapToObj(i -> i % 7 == 0 ? "header" + i : "item" + i)
+      .toList();
+  var path = Files.createTempFile("checkpoint", ".bin");
+  Files.delete(path);
+
+  // fold
+  var longCodec = boxCodec(new StateCodec<Long>() {
+    @Override
+    public void write(Long value, DataOutput output) throws IOException {
+      output.writeLong(value);
+    }
+
+    @Override
+    public Long read(DataInput input) throws IOException {
+      return input.readLong();
+    }
+  });
+  var expectedSum = lines.stream().gather(fold(() -> 0L, (Long sum, String s) -> sum + s.length())).findFirst().orElseThrow();
+  try {
+    lines.stream()
+        .gather(killAfter(60_000))
+        .gather(checkpointed(fold(() -> 0L, (Long sum, String s) -> sum + s.length()), longCodec, Optional.empty(),
+            path, 10_000, Duration.ofSeconds(1)))
+        .findFirst();
+  } catch (IllegalStateException e) {
+    System.out.println(e.getMessage());
+  }
+  var foldCheckpoint = readCheckpoint(path, longCodec);
+  System.out.println("resume fold at " + foldCheckpoint.orElseThrow().offset());
+  var sum = lines.stream()
+      .skip(foldCheckpoint.orElseThrow().offset())
+      .gather(checkpointed(fold(() -> 0L, (Long total, String s) -> total + s.length()), longCodec, foldCheckpoint,
+          path, 10_000, Duration.ofSeconds(1)))
+      .findFirst().orElseThrow();
+  System.out.println(sum.equals(expectedSum));
+
+  // windowBy, the sections received after the last checkpoint are truncated
+  var expectedSections = lines.stream().gather(windowBy(s -> s.startsWith("header"))).toList();
+  var sections = new ArrayList<Section>();
+  try {
+    lines.stream()
+        .gather(killAfter(55_555))
+        .gather(checkpointed(windowBy(s -> s.startsWith("header")), windowStateCodec, Optional.empty(),
+            path, 10_000, Duration.ofSeconds(1)))
+        .forEach(sections::add);
+  } catch (IllegalStateException e) {
+    System.out.println(e.getMessage());
+  }
+  var windowCheckpoint = readCheckpoint(path, windowStateCodec);
+  var checkpoint = windowCheckpoint.orElseThrow();
+  System.out.println("resume windowBy at " + checkpoint.offset() + ", " + sections.size() + " sections received, "
+      + checkpoint.pushed() + " kept");
+  sections.subList((int) checkpoint.pushed(), sections.size()).clear();
+  lines.stream()
+      .skip(checkpoint.offset())
+      .gather(checkpointed(windowBy(s -> s.startsWith("header")), windowStateCodec, windowCheckpoint,
+          path, 10_000, Duration.ofSeconds(1)))
+      .forEach(sections::add);
+  System.out.println(sections.equals(expectedSections));
+  System.out.println(Files.exists(path));
+  System.out.println(CHECKPOINT_WRITERS.isEmpty());
+
+  // a truncated checkpoint
+  Files.write(path, new byte[10]);
+  try {
+    readCheckpoint(path, windowStateCodec);
+  } catch (IOException e) {
+    System.out.println(e.getMessage());
+  } finally {
+    Files.delete(path);
+  }
+}
@@ -0,0 +1,293 @@
+// groupBy2 (_5), windowFixed (_12) or windowBy (_20) are sequential, so they run on one core,
+// but if the elements have a key (a user, a device) and the order only matters for the elements of the same key,
+// partitioned() runs the gatherer for each key on partitions worker threads.
+// The stream thread hashes the key of each element to a partition and sends the elements by batches
+// through a bounded queue (so a slow partition slows down the stream thread),
+// each worker runs one instance of the gatherer per key (with a state per key, the keys of a partition are
+// not mixed in the same window) and sends the results by batches through a queue that is drained by the stream thread,
+// which pushes them to the downstream (a downstream is not thread safe).
+// The results of a key are pushed in order, the results of different keys are interleaved.
+// If the integrator of a key returns false, the following elements of this key are ignored,
+// if the downstream does not want more elements or an exception is thrown, the workers are stopped.
+// If the stream is not fully consumed (by example with iterator()), the finisher is never called,
+// so the workers are also stopped by a Cleaner when the state of the gatherer is garbage collected
+// (the worker threads do not reference the state).
+// The state of a key is kept until the end of the stream (the finisher of the key has to be called),
+// so the memory grows with the number of distinct keys.
+
+static final int PARTITION_BATCH_SIZE = 256;
+static final Cleaner PARTITION_CLEANER = Cleaner.create();
+
+<T, K, R> Gatherer<T, ?, R> partitioned(Gatherer<T, ?, R> gatherer, Function<? super T, ? extends K> keyMapper,
+                                        int partitions, int queueCapacity) {
+  return _partitioned(gatherer, keyMapper, partitions, queueCapacity);
+}
+
+<T, K, A, R> Gatherer<T, ?, R> _partitioned(Gatherer<T, A, R> gatherer, Function<? super T, ? extends K> keyMapper,
+                                            int partitions, int queueCapacity) {
+  Objects.requireNonNull(gatherer);
+  Objects.requireNonNull(keyMapper);
+  if (partitions < 1 || queueCapacity < 1) {
+    throw new IllegalArgumentException("partitions or queueCapacity < 1");
+  }
+  var initializer = gatherer.initializer();
+  var integrator = gatherer.integrator();
+  var finisher = gatherer.finisher();
+  var end = new ArrayList<T>();  // sent to a worker after the last batch, compared by identity
+  var done = new ArrayList<R>();  // sent by a worker after its last results, compared by identity
+  class KeyState {
+    final A state = initializer.get();
+    boolean stopped;
+  }
+  class Worker implements Runnable, Gatherer.Downstream<R> {
+    final ArrayBlockingQueue<ArrayList<T>> queue = new ArrayBlockingQueue<>(queueCapacity);
+    final BlockingQueue<ArrayList<R>> results;
+    final HashMap<K, KeyState> states = new HashMap<>();
+    ArrayList<R> batch = new ArrayList<>();
+
+    Worker(BlockingQueue<ArrayList<R>> results) {
+      this.results = results;
+    }
+
+    @Override
+    public boolean push(R element) {
+      batch.add(element);
+      return true;
+    }
+
+    void flush() {
+      if (!batch.isEmpty()) {
+        results.add(batch);
+        batch = new ArrayList<>();
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        for (;;) {
+          var elements = queue.take();
+          if (elements == end) {
+            break;
+          }
+          for (var element : elements) {
+            var keyState = states.computeIfAbsent(keyMapper.apply(element), _ -> new KeyState());
+            if (!keyState.stopped && !integrator.integrate(keyState.state, element, this)) {
+              keyState.stopped = true;
+            }
+          }
+          flush();
+        }
+        for (var keyState : states.values()) {
+          finisher.accept(keyState.state, this);
+        }
+        flush();
+        results.add(done);
+      } catch (InterruptedException e) {
+        // stopped by the stream thread
+      }
+    }
+  }
+  class State {
+    final LinkedBlockingQueue<ArrayList<R>> results = new LinkedBlockingQueue<>();  // drained by the stream thread
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    final Worker[] workers = new Worker[partitions];
+    final Thread[] threads = new Thread[partitions];
+    final ArrayList<ArrayList<T>> batches = new ArrayList<>();  // one batch per partition, not sent yet
+
+    State() {
+      var results = this.results;  // the threads must not reference the state
+      var error = this.error;
+      for (var i = 0; i < partitions; i++) {
+        var worker = new Worker(results);
+        workers[i] = worker;
+        batches.add(new ArrayList<>());
+        threads[i] = Thread.ofPlatform()
+            .name("partition-" + i)
+            .daemon()
+            .uncaughtExceptionHandler((_, throwable) -> {
+              error.compareAndSet(null, throwable);
+              results.add(done);
+            })
+            .start(worker);
+      }
+      var threads = this.threads;
+      PARTITION_CLEANER.register(this, () -> {
+        for (var thread : threads) {
+          thread.interrupt();
+        }
+      });
+    }
+
+    void stop() {
+      for (var thread : threads) {
+        thread.interrupt();
+      }
+    }
+
+    // returns the number of workers that have finished
+    int pushResults(Gatherer.Downstream<? super R> downstream, boolean wait) throws InterruptedException {
+      var finished = 0;
+      ArrayList<R> results;
+      while ((results = wait ? this.results.take() : this.results.poll()) != null) {
+        var throwable = error.get();
+        if (throwable != null) {
+          throw new IllegalStateException("a partition has failed", throwable);
+        }
+        if (results == done) {
+          finished++;
+          if (wait) {
+            return finished;
+          }
+          continue;
+        }
+        for (var result : results) {
+          if (!downstream.push(result)) {
+            return -1;
+          }
+        }
+      }
+      return finished;
+    }
+
+    // returns false if the downstream does not want more elements
+    boolean send(int partition, ArrayList<T> batch, Gatherer.Downstream<? super R> downstream) throws InterruptedException {
+      var queue = workers[partition].queue;
+      if (!queue.offer(batch)) {
+        while (!queue.offer(batch, 1, TimeUnit.MILLISECONDS)) {  // pushes the results while waiting
+          if (pushResults(downstream, false) == -1) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    boolean integrate(T element, Gatherer.Downstream<? super R> downstream) {
+      try {
+        var hash = Objects.hashCode(keyMapper.apply(element)) * 0x9E3779B9;  // the high bits are well mixed
+        var partition = (int) (((hash & 0xFFFF_FFFFL) * partitions) >>> 32);
+        var batch = batches.get(partition);
+        batch.add(element);
+        if (batch.size() == PARTITION_BATCH_SIZE) {
+          batches.set(partition, new ArrayList<>());
+          if (!send(partition, batch, downstream) || pushResults(downstream, false) == -1) {
+            stop();
+            return false;
+          }
+        }
+        return true;
+      } catch (InterruptedException e) {
+        stop();
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      } catch (RuntimeException | Error e) {
+        stop();
+        throw e;
+      }
+    }
+
+    void finish(Gatherer.Downstream<? super R> downstream) {
+      try {
+        for (var i = 0; i < partitions; i++) {
+          var batch = batches.get(i);
+          if ((!batch.isEmpty() && !send(i, batch, downstream)) || !send(i, end, downstream)) {
+            stop();
+            return;
+          }
+        }
+        for (var finished = 0; finished < partitions;) {
+          var count = pushResults(downstream, true);
+          if (count == -1) {
+            stop();
+            return;
+          }
+          finished += count;
+        }
+      } catch (InterruptedException e) {
+        stop();
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      } catch (RuntimeException | Error e) {
+        stop();
+        throw e;
+      }
+    }
+  }
+  return Gatherer.ofSequential(
+      State::new,
+      (state, element, downstream) -> state.integrate(element, downstream),
+      (state, downstream) -> state.finish(downstream)
+  );
+}
+
+<T> Gatherer<T, ?, List<T>> windowFixed(int windowSize) {
+  if (windowSize < 1) {
+    throw new IllegalArgumentException("windowSize < 1");
+  }
+  return Gatherer.ofSequential(
+      () -> new Object() { ArrayList<T> list = new ArrayList<>(); },
+      Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+        state.list.add(element);
+        if (state.list.size() == windowSize) {
+          var list = state.list;
+          state.list = new ArrayList<>();
+          return downstream.push(list);
+        }
+        return true;
+      }),
+      (state, downstream) -> {
+        if (!state.list.isEmpty()) {
+          downstream.push(state.list);
+        }
+      }
+  );
+}
+
+record Event(String device, int sequence) {}
+
+void main() {
+  var text = """
+      item1
+      item2
+      --
+      item11
+      item12
+      """;
+
+  System.out.println(text.lines()
+      .gather(partitioned(windowFixed(2), String::length, 2, 16))
+      .toList());
+
+  var events = IntStream.range(0, 1_000_000)
+      .mapToObj(i -> new Event("device" + (i % 1_000), i / 1_000))
+      .toList();
+  var expected = events.stream()
+      .collect(Collectors.groupingBy(Event::device, Collectors.collectingAndThen(Collectors.toList(),
+          list -> list.stream().gather(windowFixed(10)).toList())));
+  var windows = events.stream()
+      .gather(partitioned(windowFixed(10), Event::device, Runtime.getRuntime().availableProcessors(), 64))
+      .collect(Collectors.groupingBy(window -> window.getFirst().device()));
+  System.out.println(windows.equals(expected));
+
+  System.out.println(events.stream()
+      .gather(partitioned(windowFixed(10), Event::device, 4, 64))
+      .limit(3)
+      .toList());
+
+  // the stream is not fully consumed, the workers are stopped when the state is garbage collected
+  var iterator = events.stream()
+      .gather(partitioned(windowFixed(10), Event::device, 4, 64))
+      .iterator();
+  System.out.println(iterator.next().size());
+  iterator = null;
+  for (var i = 0; i < 10 && Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.getName().startsWith("partition-")); i++) {
+    System.gc();
+    try {
+      Thread.sleep(100);
+    } catch (InterruptedException e) {
+      throw new AssertionError(e);
+    }
+  }
+  System.out.println(Thread.getAllStackTraces().keySet().stream().noneMatch(t -> t.getName().startsWith("partition-")));
+}
@@ -0,0 +1,161 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Compares two JMH results recorded with -rf csv (see DemoGathererBenchmark)
+// and reports the benchmarks that are slower (or allocate more, using gc.alloc.rate.norm of -prof gc)
+// than the baseline by more than threshold percents and by more than the sum of the score errors.
+// The other secondary metrics (gc.alloc.rate, gc.count, gc.time) depend on the speed or are too noisy, they are ignored.
+// The exit code is 1 if there is at least one regression, so it can be used in a script.
+//
+//   java -cp target/benchmarks.jar com.gihtub.forax.wearealltogather.bench.BenchmarkComparator baseline.csv current.csv [threshold]
+
+public class BenchmarkComparator {
+  record Result(String key, String mode, double score, double error, String unit) {
+    boolean higherIsBetter() {
+      return mode.equals("thrpt") && !key.contains(":");
+    }
+  }
+
+  static List<String> parseLine(String line) {
+    var fields = new ArrayList<String>();
+    var builder = new StringBuilder();
+    var quoted = false;
+    for (var i = 0; i < line.length(); i++) {
+      var c = line.charAt(i);
+      if (c == '"') {
+        if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          builder.append('"');
+          i++;
+          continue;
+        }
+        quoted = !quoted;
+        continue;
+      }
+      if (c == ',' && !quoted) {
+        fields.add(builder.toString());
+        builder.setLength(0);
+        continue;
+      }
+      builder.append(c);
+    }
+    fields.add(builder.toString());
+    return fields;
+  }
+
+  static double parseScore(String text) {
+    if (text.isEmpty() || text.equals("NaN")) {
+      return Double.NaN;
+    }
+    return Double.parseDouble(text);
+  }
+
+  static Map<String, Result> load(Path path) {
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(path);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (lines.isEmpty()) {
+      throw new IllegalArgumentException("empty result file " + path);
+    }
+    var header = parseLine(lines.getFirst());
+    var benchmarkIndex = header.indexOf("Benchmark");
+    var modeIndex = header.indexOf("Mode");
+    var scoreIndex = header.indexOf("Score");
+    var errorIndex = header.indexOf("Score Error (99.9%)");
+    var unitIndex = header.indexOf("Unit");
+    if (benchmarkIndex == -1 || modeIndex == -1 || scoreIndex == -1 || unitIndex == -1) {
+      throw new IllegalArgumentException("not a JMH csv result file " + path);
+    }
+    var results = new LinkedHashMap<String, Result>();
+    for (var line : lines.subList(1, lines.size())) {
+      if (line.isBlank()) {
+        continue;
+      }
+      var fields = parseLine(line);
+      var benchmark = fields.get(benchmarkIndex);
+      if (benchmark.contains(":") && !benchmark.endsWith(":gc.alloc.rate.norm")) {
+        continue;
+      }
+      var params = new ArrayList<String>();
+      for (var i = 0; i < header.size(); i++) {
+        var name = header.get(i);
+        if (name.startsWith("Param: ") && i < fields.size() && !fields.get(i).isEmpty()) {
+          params.add(name.substring("Param: ".length()) + "=" + fields.get(i));
+        }
+      }
+      var key = benchmark + (params.isEmpty() ? "" : params.stream().collect(Collectors.joining(", ", " [", "]")));
+      var error = errorIndex == -1 ? Double.NaN : parseScore(fields.get(errorIndex));
+      results.put(key, new Result(key, fields.get(modeIndex), parseScore(fields.get(scoreIndex)), error, fields.get(unitIndex)));
+    }
+    return results;
+  }
+
+  static double noise(Result result) {
+    return Double.isNaN(result.error) ? 0 : result.error;
+  }
+
+  // positive means worse than the baseline
+  static double regression(Result baseline, Result current) {
+    var change = (current.score - baseline.score) / baseline.score * 100;
+    return baseline.higherIsBetter() ? -change : change;
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("usage: BenchmarkComparator baseline.csv current.csv [threshold in percents, default 10]");
+      System.exit(2);
+      return;
+    }
+    var baselines = load(Path.of(args[0]));
+    var currents = load(Path.of(args[1]));
+    var threshold = args.length == 3 ? Double.parseDouble(args[2]) : 10;
+
+    var regressions = 0;
+    for (var current : currents.values()) {
+      var baseline = baselines.get(current.key);
+      if (baseline == null) {
+        System.out.println("NEW        " + current.key + " " + current.score + " " + current.unit);
+        continue;
+      }
+      if (!baseline.unit.equals(current.unit)) {
+        System.out.println("UNIT       " + current.key + " " + baseline.unit + " -> " + current.unit);
+        continue;
+      }
+      if (baseline.score == 0 || Double.isNaN(baseline.score) || Double.isNaN(current.score)) {
+        continue;
+      }
+      if (Math.abs(current.score - baseline.score) <= noise(baseline) + noise(current)) {
+        continue;
+      }
+      var regression = regression(baseline, current);
+      if (regression > threshold) {
+        regressions++;
+        System.out.printf("REGRESSION %s %.3f -> %.3f %s (%+.1f%%)%n",
+            current.key, baseline.score, current.score, current.unit, regression);
+      } else if (regression < -threshold) {
+        System.out.printf("IMPROVED   %s %.3f -> %.3f %s (%+.1f%%)%n",
+            current.key, baseline.score, current.score, current.unit, regression);
+      }
+    }
+    for (var key : baselines.keySet()) {
+      if (!currents.containsKey(key)) {
+        System.out.println("MISSING    " + key);
+      }
+    }
+    System.out.println(regressions + " regression(s) above " + threshold + "%");
+    if (regressions != 0) {
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,250 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Gatherer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _42_byteLines.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class ByteLinesBenchmark {
+
+  private Path path;
+
+  // 1M log lines, 99% are dropped
+  @Setup
+  public void setup() throws IOException {
+    path = Files.createTempFile("byte-lines", ".log");
+    Files.write(path, IntStream.range(0, 1_000_000)
+        .mapToObj(i -> (i % 100 == 0 ? "ERROR" : "INFO ") + " 2025-01-01T00:00:00 request " + i + " served in " + (i % 17) + "ms")
+        .toList());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.delete(path);
+  }
+
+  static final class ByteLine implements CharSequence {
+    private final Charset charset;
+    private ByteBuffer buffer;
+    private int start;
+    private int length;
+    private byte[] scratch = new byte[128];
+
+    ByteLine(Charset charset) {
+      this.charset = charset;
+    }
+
+    void set(ByteBuffer buffer, int start, int length) {
+      this.buffer = buffer;
+      this.start = start;
+      this.length = length;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      Objects.checkIndex(index, length);
+      return (char) (buffer.get(start + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      Objects.checkFromToIndex(start, end, length);
+      var line = new ByteLine(charset);
+      line.set(buffer, this.start + start, end - start);
+      return line;
+    }
+
+    @Override
+    public String toString() {
+      if (buffer.hasArray()) {
+        return new String(buffer.array(), buffer.arrayOffset() + start, length, charset);
+      }
+      if (scratch.length < length) {
+        scratch = new byte[Math.max(length, scratch.length << 1)];
+      }
+      buffer.get(start, scratch, 0, length);
+      return new String(scratch, 0, length, charset);
+    }
+  }
+
+  static boolean startsWith(CharSequence sequence, String prefix) {
+    var length = prefix.length();
+    if (sequence.length() < length) {
+      return false;
+    }
+    for (var i = 0; i < length; i++) {
+      if (sequence.charAt(i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static boolean endsWith(CharSequence sequence, String suffix) {
+    var length = suffix.length();
+    var offset = sequence.length() - length;
+    if (offset < 0) {
+      return false;
+    }
+    for (var i = 0; i < length; i++) {
+      if (sequence.charAt(offset + i) != suffix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static Gatherer<ByteBuffer, ?, String> filterLines(Charset charset, Predicate<? super CharSequence> predicate) {
+    Objects.requireNonNull(charset);
+    Objects.requireNonNull(predicate);
+    if (!charset.equals(StandardCharsets.UTF_8) && !charset.equals(StandardCharsets.US_ASCII)
+        && !charset.equals(StandardCharsets.ISO_8859_1)) {
+      throw new IllegalArgumentException("'\\n' may not be encoded as a single byte in " + charset);
+    }
+    class State {
+      final ByteLine line = new ByteLine(charset);
+      ByteBuffer carry = ByteBuffer.allocate(128);  // the beginning of a line that spans several chunks
+
+      boolean test(ByteBuffer buffer, int start, int end, Gatherer.Downstream<? super String> downstream) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+          end--;
+        }
+        line.set(buffer, start, end - start);
+        if (predicate.test(line)) {
+          return downstream.push(line.toString());
+        }
+        return true;
+      }
+
+      void appendToCarry(ByteBuffer chunk, int start, int end) {
+        var length = end - start;
+        if (carry.remaining() < length) {
+          carry = ByteBuffer.allocate(Math.max(carry.capacity() << 1, carry.position() + length))
+              .put(carry.flip());
+        }
+        carry.put(carry.position(), chunk, start, length);
+        carry.position(carry.position() + length);
+      }
+
+      boolean integrate(ByteBuffer chunk, Gatherer.Downstream<? super String> downstream) {
+        var start = chunk.position();
+        var limit = chunk.limit();
+        for (var i = start; i < limit; i++) {
+          if (chunk.get(i) != '\n') {
+            continue;
+          }
+          if (carry.position() != 0) {
+            appendToCarry(chunk, start, i);
+            var result = test(carry, 0, carry.position(), downstream);
+            carry.clear();
+            if (!result) {
+              return false;
+            }
+          } else if (!test(chunk, start, i, downstream)) {
+            return false;
+          }
+          start = i + 1;
+        }
+        appendToCarry(chunk, start, limit);
+        return true;
+      }
+
+      void finish(Gatherer.Downstream<? super String> downstream) {
+        if (carry.position() != 0) {
+          test(carry, 0, carry.position(), downstream);
+        }
+      }
+    }
+    return Gatherer.ofSequential(
+        State::new,
+        Gatherer.Integrator.ofGreedy((state, chunk, downstream) -> state.integrate(chunk, downstream)),
+        (state, downstream) -> state.finish(downstream)
+    );
+  }
+
+  // the same direct ByteBuffer is used for all the chunks
+  static Stream<ByteBuffer> chunks(ReadableByteChannel channel, int chunkSize) {
+    Objects.requireNonNull(channel);
+    var buffer = ByteBuffer.allocateDirect(chunkSize);
+    // ordered and never split, a split would buffer the chunks but the buffer is reused
+    return StreamSupport.stream(new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+      @Override
+      public boolean tryAdvance(Consumer<? super ByteBuffer> action) {
+        buffer.clear();
+        int read;
+        try {
+          read = channel.read(buffer);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        if (read == -1) {
+          return false;
+        }
+        action.accept(buffer.flip());
+        return true;
+      }
+
+      @Override
+      public Spliterator<ByteBuffer> trySplit() {
+        return null;
+      }
+    }, false);
+  }
+
+  @Benchmark
+  public long files_lines_filter() throws IOException {
+    try (var lines = Files.lines(path, StandardCharsets.UTF_8)) {
+      return lines.filter(line -> line.startsWith("ERROR")).count();
+    }
+  }
+
+  @Benchmark
+  public long gatherer_filterLines() throws IOException {
+    try (var channel = FileChannel.open(path)) {
+      return chunks(channel, 64 * 1024)
+          .gather(filterLines(StandardCharsets.UTF_8, line -> startsWith(line, "ERROR")))
+          .count();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Gatherer;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _10_collector_as_gatherer.java and _30_asGatherer_characteristics.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class CollectorGathererBenchmark {
+
+  private final List<Integer> integers = IntStream.range(0, 1_000_000).boxed().toList();
+
+  static <E, A, T> Gatherer<E, A, T> asGatherer(Collector<? super E, A, ? extends T> collector) {
+    var supplier = collector.supplier();
+    var accumulator = collector.accumulator();
+    var combiner = collector.combiner();
+    var finisher = collector.finisher();
+    return Gatherer.of(supplier,
+        Gatherer.Integrator.ofGreedy((state, element, _) -> {
+          accumulator.accept(state, element);
+          return true;
+        }),
+        combiner,
+        (state, downstream) -> downstream.push(finisher.apply(state)));
+  }
+
+  static <E, A, T> Gatherer<E, A, T> asGathererWithCharacteristics(Collector<? super E, A, ? extends T> collector) {
+    var supplier = collector.supplier();
+    var accumulator = collector.accumulator();
+    var combiner = collector.combiner();
+    var finisher = collector.finisher();
+    var characteristics = collector.characteristics();
+    var concurrent = characteristics.contains(Collector.Characteristics.CONCURRENT)
+        && characteristics.contains(Collector.Characteristics.UNORDERED);
+    var identityFinish = characteristics.contains(Collector.Characteristics.IDENTITY_FINISH);
+    var integrator = Gatherer.Integrator.<A, E, T>ofGreedy((state, element, _) -> {
+      accumulator.accept(state, element);
+      return true;
+    });
+    @SuppressWarnings("unchecked")
+    BiConsumer<A, Gatherer.Downstream<? super T>> gathererFinisher = identityFinish
+        ? (state, downstream) -> downstream.push((T) state)
+        : (state, downstream) -> downstream.push(finisher.apply(state));
+    if (!concurrent) {
+      return Gatherer.of(supplier, integrator, combiner, gathererFinisher);
+    }
+    var shared = new AtomicReference<A>();  // the container of the current evaluation
+    return Gatherer.of(
+        () -> {
+          var container = shared.get();
+          if (container == null) {
+            var newContainer = supplier.get();
+            container = shared.compareAndExchange(null, newContainer);
+            if (container == null) {
+              container = newContainer;
+            }
+          }
+          return container;
+        },
+        integrator,
+        (s1, s2) -> s1 == s2 ? s1 : combiner.apply(s1, s2),
+        (state, downstream) -> {
+          shared.compareAndSet(state, null);  // hand off, the next evaluation creates a new container
+          gathererFinisher.accept(state, downstream);
+        });
+  }
+
+  @Benchmark
+  public ConcurrentMap<Integer, Long> stream_collect_groupingByConcurrent() {
+    return integers.parallelStream()
+        .collect(Collectors.groupingByConcurrent(v -> v & 1023, Collectors.counting()));
+  }
+  @Benchmark
+  public ConcurrentMap<Integer, Long> gatherer_asGatherer_groupingByConcurrent() {
+    return integers.parallelStream()
+        .gather(asGatherer(Collectors.groupingByConcurrent((Integer v) -> v & 1023, Collectors.counting())))
+        .findFirst().orElseThrow();
+  }
+  @Benchmark
+  public ConcurrentMap<Integer, Long> gatherer_asGathererWithCharacteristics_groupingByConcurrent() {
+    return integers.parallelStream()
+        .gather(asGathererWithCharacteristics(Collectors.groupingByConcurrent((Integer v) -> v & 1023, Collectors.counting())))
+        .findFirst().orElseThrow();
+  }
+
+  @Benchmark
+  public Map<Integer, Integer> stream_collect_toConcurrentMap() {
+    return integers.parallelStream()
+        .collect(Collectors.toConcurrentMap(v -> v, v -> v));
+  }
+  @Benchmark
+  public Map<Integer, Integer> gatherer_asGatherer_toConcurrentMap() {
+    return integers.parallelStream()
+        .gather(asGatherer(Collectors.toConcurrentMap((Integer v) -> v, v -> v)))
+        .findFirst().orElseThrow();
+  }
+  @Benchmark
+  public Map<Integer, Integer> gatherer_asGathererWithCharacteristics_toConcurrentMap() {
+    return integers.parallelStream()
+        .gather(asGathererWithCharacteristics(Collectors.toConcurrentMap((Integer v) -> v, v -> v)))
+        .findFirst().orElseThrow();
+  }
+
+  @Benchmark
+  public List<Integer> stream_collect_toList() {
+    return integers.parallelStream().collect(Collectors.toList());
+  }
+  @Benchmark
+  public List<Integer> gatherer_asGatherer_toList() {
+    return integers.parallelStream().gather(asGatherer(Collectors.<Integer>toList())).findFirst().orElseThrow();
+  }
+  @Benchmark
+  public List<Integer> gatherer_asGathererWithCharacteristics_toList() {
+    return integers.parallelStream().gather(asGathererWithCharacteristics(Collectors.<Integer>toList())).findFirst().orElseThrow();
+  }
+}
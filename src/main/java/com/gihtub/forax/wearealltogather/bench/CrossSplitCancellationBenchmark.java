@@ -0,0 +1,286 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Gatherer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// see _43_crossSplitCancellation.java
+// The wasted work is reported by the secondary results ":elements" (the number of elements seen by the predicate
+// or the gatherer) and ":operations", the work per operation is elements / operations.
+// The "perSplit" benchmarks are the gatherers where a split only stops itself (_2_take_while, _28_findIndex_parallel),
+// the "shared" benchmarks are the ones sharing the cut-off across the splits.
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class CrossSplitCancellationBenchmark {
+
+  @Param({ "1", "50" })
+  private int cutoffPercent;
+
+  @Param({ "0", "50" })
+  private int tokens;  // the CPU cost of the predicate
+
+  private final List<Integer> integers = IntStream.range(0, 10_000_000).boxed().toList();
+  private int cutoff;
+  private final LongAdder elements = new LongAdder();
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Work {
+    public long elements;
+    public long operations;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      elements = 0;
+      operations = 0;
+    }
+  }
+
+  @Setup
+  public void setup() {
+    cutoff = integers.size() / 100 * cutoffPercent;
+  }
+
+  private boolean lessThanCutoff(Integer value) {
+    elements.increment();
+    Blackhole.consumeCPU(tokens);
+    return value < cutoff;
+  }
+
+  private boolean equalsCutoff(Integer value) {
+    elements.increment();
+    Blackhole.consumeCPU(tokens);
+    return value == cutoff;
+  }
+
+  private <T> T count(Work work, T result) {
+    work.elements += elements.sumThenReset();
+    work.operations++;
+    return result;
+  }
+
+  record Indexed<T>(long index, T element, AtomicLong cutoff) {}
+
+  static <T> Stream<Indexed<T>> indexed(List<T> list) {
+    Objects.requireNonNull(list);
+    var cutoff = new AtomicLong(Long.MAX_VALUE);  // one per stream, so one per evaluation
+    return IntStream.range(0, list.size()).mapToObj(i -> new Indexed<>(i, list.get(i), cutoff));
+  }
+
+  static void minimize(AtomicLong cutoff, long index) {
+    for (var current = cutoff.get(); index < current; current = cutoff.get()) {
+      if (cutoff.compareAndSet(current, index)) {
+        return;
+      }
+    }
+  }
+
+  static <T> Gatherer<Indexed<T>, ?, T> limit(long maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize < 0");
+    }
+    return Gatherer.of((_, indexed, downstream) -> {
+      if (indexed.index() >= maxSize) {
+        return false;
+      }
+      return downstream.push(indexed.element());
+    });
+  }
+
+  // if shared is false, each split has its own cut-off and the combiner keeps the smallest one
+  static <T> Gatherer<Indexed<T>, ?, T> takeWhile(Predicate<? super T> predicate, boolean shared) {
+    Objects.requireNonNull(predicate);
+    class State {
+      AtomicLong cutoff;  // null if the split is empty
+      final ArrayList<ArrayList<Indexed<T>>> parts = new ArrayList<>();  // one part per split, in encounter order
+      final ArrayList<Indexed<T>> part = new ArrayList<>();
+
+      State() {
+        parts.add(part);
+      }
+    }
+    return Gatherer.of(
+        State::new,
+        (state, indexed, _) -> {
+          if (state.cutoff == null) {
+            state.cutoff = shared ? indexed.cutoff() : new AtomicLong(Long.MAX_VALUE);
+          }
+          var cutoff = state.cutoff;
+          var index = indexed.index();
+          if (index >= cutoff.get()) {
+            return false;  // there is already a cut-off before
+          }
+          if (!predicate.test(indexed.element())) {
+            minimize(cutoff, index);
+            return false;
+          }
+          state.part.add(indexed);
+          return true;
+        },
+        (s1, s2) -> {
+          if (s1.cutoff == null) {
+            s1.cutoff = s2.cutoff;
+          } else if (s2.cutoff != null) {
+            minimize(s1.cutoff, s2.cutoff.get());
+          }
+          s1.parts.addAll(s2.parts);
+          return s1;
+        },
+        (state, downstream) -> {
+          if (state.cutoff == null) {
+            return;
+          }
+          var cutoff = state.cutoff.get();
+          for (var part : state.parts) {
+            for (var indexed : part) {
+              if (indexed.index() >= cutoff || !downstream.push(indexed.element())) {
+                return;
+              }
+            }
+          }
+        });
+  }
+
+  static <T> Gatherer<Indexed<T>, ?, Long> findIndex(Predicate<? super T> predicate) {
+    Objects.requireNonNull(predicate);
+    class State {
+      AtomicLong first;  // the cut-off of the stream, null if the split is empty
+    }
+    return Gatherer.of(
+        State::new,
+        (state, indexed, _) -> {
+          var first = indexed.cutoff();
+          state.first = first;
+          var index = indexed.index();
+          if (index > first.get()) {
+            return false;  // there is already a match before
+          }
+          if (predicate.test(indexed.element())) {
+            minimize(first, index);
+            return false;
+          }
+          return true;
+        },
+        (s1, s2) -> s1.first != null ? s1 : s2,
+        (state, downstream) -> {
+          if (state.first == null) {
+            return;
+          }
+          var index = state.first.get();
+          if (index != Long.MAX_VALUE) {
+            downstream.push(index);
+          }
+        });
+  }
+
+  // see _28_findIndex_parallel.java, a split only stops itself
+  static <T> Gatherer<T, ?, Integer> findIndexPerSplit(Predicate<? super T> predicate) {
+    class State {
+      int count;
+      int index = -1;
+    }
+    return Gatherer.of(
+        State::new,
+        (state, element, _) -> {
+          if (predicate.test(element)) {
+            state.index = state.count;
+            return false;
+          }
+          state.count++;
+          return true;
+        },
+        (s1, s2) -> {
+          if (s1.index == -1) {
+            s1.index = s2.index == -1 ? -1 : s1.count + s2.index;
+            s1.count += s2.count;
+          }
+          return s1;
+        },
+        (state, downstream) -> {
+          if (state.index != -1) {
+            downstream.push(state.index);
+          }
+        });
+  }
+
+  @Benchmark
+  public List<Integer> stream_limit(Work work) {
+    return count(work, integers.parallelStream()
+        .peek(_ -> elements.increment())
+        .limit(cutoff)
+        .toList());
+  }
+
+  @Benchmark
+  public List<Integer> gatherer_limit_shared(Work work) {
+    return count(work, indexed(integers).parallel()
+        .peek(_ -> elements.increment())
+        .gather(limit(cutoff))
+        .toList());
+  }
+
+  @Benchmark
+  public List<Integer> stream_takeWhile(Work work) {
+    return count(work, integers.parallelStream()
+        .takeWhile(this::lessThanCutoff)
+        .toList());
+  }
+
+  @Benchmark
+  public List<Integer> gatherer_takeWhile_perSplit(Work work) {
+    return count(work, indexed(integers).parallel()
+        .gather(takeWhile(this::lessThanCutoff, false))
+        .toList());
+  }
+
+  @Benchmark
+  public List<Integer> gatherer_takeWhile_shared(Work work) {
+    return count(work, indexed(integers).parallel()
+        .gather(takeWhile(this::lessThanCutoff, true))
+        .toList());
+  }
+
+  @Benchmark
+  public Integer gatherer_findIndex_perSplit(Work work) {
+    return count(work, integers.parallelStream()
+        .gather(findIndexPerSplit(this::equalsCutoff))
+        .findFirst()
+        .orElse(-1));
+  }
+
+  @Benchmark
+  public Long gatherer_findIndex_shared(Work work) {
+    return count(work, indexed(integers).parallel()
+        .gather(findIndex(this::equalsCutoff))
+        .findFirst()
+        .orElse(-1L));
+  }
+}
@@ -0,0 +1,383 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Gatherer;
+import java.util.stream.Gatherers;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// All the gatherers of the demo (_1_filter to _21_windowByWithCollector) against their Stream/Gatherers counterpart.
+// The parameter greedy is declared by the state Integration, which is only used by the benchmarks of the gatherers
+// that can be greedy, so the Stream/Gatherers counterparts and the short-circuit gatherers (takeWhile, limit, findIndex),
+// which are never greedy, are not run twice.
+//
+// To record a baseline and compare a new run against it (see BenchmarkComparator)
+//   java -jar target/benchmarks.jar DemoGathererBenchmark -prof gc -rf csv -rff baseline.csv
+//   java -jar target/benchmarks.jar DemoGathererBenchmark -prof gc -rf csv -rff current.csv
+//   java -cp target/benchmarks.jar com.gihtub.forax.wearealltogather.bench.BenchmarkComparator baseline.csv current.csv 10
+
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class DemoGathererBenchmark {
+
+  @Param({ "1000", "100000", "10000000" })
+  private int size;
+
+  @Param({ "false", "true" })
+  private boolean parallel;
+
+  @State(Scope.Benchmark)
+  public static class Integration {
+    @Param({ "true", "false" })
+    private boolean greedy;
+  }
+
+  private List<Integer> integers;
+
+  @Setup
+  public void setup() {
+    integers = IntStream.range(0, size).boxed().toList();
+  }
+
+  private Stream<Integer> stream() {
+    return parallel ? integers.parallelStream() : integers.stream();
+  }
+
+  record Section(Integer header, List<Integer> items) {}
+
+  static <A, T, R> Gatherer.Integrator<A, T, R> integrator(boolean greedy, Gatherer.Integrator<A, T, R> integrator) {
+    return greedy ? Gatherer.Integrator.<A, T, R>ofGreedy(integrator::integrate) : integrator;
+  }
+
+  // _1_filter and _6_filter_greedy
+  static <T> Gatherer<T, ?, T> filter(boolean greedy, Predicate<? super T> predicate) {
+    return Gatherer.of(integrator(greedy, (_, element, downstream) -> {
+      if (predicate.test(element)) {
+        return downstream.push(element);
+      }
+      return true;
+    }));
+  }
+
+  // _11_map
+  static <T, R> Gatherer<T, ?, R> map(boolean greedy, Function<? super T, ? extends R> mapper) {
+    return Gatherer.of(integrator(greedy, (_, element, downstream) -> {
+      return downstream.push(mapper.apply(element));
+    }));
+  }
+
+  // _2_take_while
+  static <T> Gatherer<T, ?, T> takeWhile(Predicate<? super T> predicate) {
+    return Gatherer.ofSequential((_, element, downstream) -> {
+      if (predicate.test(element)) {
+        return downstream.push(element);
+      }
+      return false;
+    });
+  }
+
+  // _3_limit
+  static <T> Gatherer<T, ?, T> limit(int maxSize) {
+    class Counter {
+      int counter;
+    }
+    return Gatherer.ofSequential(
+        Counter::new,
+        (counter, element, downstream) -> {
+          if (counter.counter++ == maxSize) {
+            return false;
+          }
+          return downstream.push(element);
+        }
+    );
+  }
+
+  // _5_groupBy2_sequential, _7_groupBy2_sequential_greedy and _12_windowFixed
+  static <T> Gatherer<T, ?, List<T>> groupBy2(boolean greedy) {
+    class State {
+      ArrayList<T> list = new ArrayList<>();
+    }
+    return Gatherer.ofSequential(
+        State::new,
+        integrator(greedy, (state, element, downstream) -> {
+          var list = state.list;
+          list.add(element);
+          if (state.list.size() == 2) {
+            state.list = new ArrayList<>();
+            return downstream.push(list);
+          }
+          return true;
+        }),
+        (state, downstream) -> {
+          if (!state.list.isEmpty()) {
+            downstream.push(state.list);
+          }
+        }
+    );
+  }
+
+  // _13_fold
+  static <T> Gatherer<T, ?, Integer> fold(boolean greedy) {
+    return Gatherer.ofSequential(
+        () -> new Object() { int counter; },
+        integrator(greedy, (state, _, _) -> {
+          state.counter++;
+          return true;
+        }),
+        (state, downstream) -> {
+          downstream.push(state.counter);
+        }
+    );
+  }
+
+  // _14_reduce
+  static <T> Gatherer<T, ?, Integer> reduce(boolean greedy) {
+    class Counter {
+      int counter;
+      Counter(int counter) {
+        this.counter = counter;
+      }
+    }
+    return Gatherer.of(
+        () -> new Counter(0),
+        integrator(greedy, (state, _, _) -> {
+          state.counter++;
+          return true;
+        }),
+        (s1, s2) -> new Counter(s1.counter + s2.counter),
+        (state, downstream) -> downstream.push(state.counter)
+    );
+  }
+
+  // _18_findIndex
+  static <T> Gatherer<T, ?, Integer> findIndex(Predicate<? super T> predicate) {
+    return Gatherer.ofSequential(
+        () -> new Object() { int index; },
+        Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+          var index = state.index++;
+          if (predicate.test(element)) {
+            return downstream.push(index);
+          }
+          return true;
+        }));
+  }
+
+  // _21_windowByWithCollector
+  static <T, A, R, R2> Gatherer<T, ?, R2> windowBy(boolean greedy,
+                                                  Predicate<? super T> predicate,
+                                                  Collector<? super T, A, ? extends R> collector,
+                                                  BiFunction<? super T, ? super R, ? extends R2> mapper) {
+    var supplier = collector.supplier();
+    var accumulator = collector.accumulator();
+    var finisher = collector.finisher();
+    class State {
+      A container;
+      T element;
+    }
+    return Gatherer.ofSequential(
+        State::new,
+        integrator(greedy, (state, element, downstream) -> {
+          if (predicate.test(element)) {
+            if (state.container != null) {
+              if (!downstream.push(mapper.apply(state.element, finisher.apply(state.container)))) {
+                return false;
+              }
+            }
+            state.container = supplier.get();
+            state.element = element;
+            return true;
+          }
+          if (state.container == null) {
+            throw new IllegalStateException("");
+          }
+          accumulator.accept(state.container, element);
+          return true;
+        }),
+        (state, downstream) -> {
+          if (state.container != null) {
+            downstream.push(mapper.apply(state.element, finisher.apply(state.container)));
+          }
+        }
+    );
+  }
+
+  // _10_collector_as_gatherer
+  static <E, A, T> Gatherer<E, A, T> asGatherer(boolean greedy, Collector<? super E, A, ? extends T> collector) {
+    var supplier = collector.supplier();
+    var accumulator = collector.accumulator();
+    var combiner = collector.combiner();
+    var finisher = collector.finisher();
+    return Gatherer.of(supplier,
+        integrator(greedy, (state, element, _) -> {
+          accumulator.accept(state, element);
+          return true;
+        }),
+        combiner,
+        (state, downstream) -> downstream.push(finisher.apply(state)));
+  }
+
+  static <E, A, T> Collector<E, A, T> asCollector(Gatherer<? super E, A, T> gatherer) {
+    var initializer = gatherer.initializer();
+    var integrator = gatherer.integrator();
+    var combiner = gatherer.combiner();
+    var finisher = gatherer.finisher();
+    return Collector.of(
+        initializer,
+        (state, element) -> integrator.integrate(state, element, __ -> { throw new IllegalStateException(); }),
+        combiner,
+        state -> {
+          var box = new Object() { T result; };
+          finisher.accept(state, value -> { box.result = value; return true; });
+          return box.result;
+        });
+  }
+
+  static <T> Supplier<T> supplier(Supplier<T> supplier) {
+    return supplier;
+  }
+
+  static <T> BinaryOperator<T> operator(BinaryOperator<T> operator) {
+    return operator;
+  }
+
+  @Benchmark
+  public void stream_filter(Blackhole blackhole) {
+    stream().filter(v -> (v & 1) == 0).forEach(blackhole::consume);
+  }
+  @Benchmark
+  public void gatherer_filter(Integration integration, Blackhole blackhole) {
+    stream().gather(filter(integration.greedy, (Integer v) -> (v & 1) == 0)).forEach(blackhole::consume);
+  }
+
+  @Benchmark
+  public void stream_map(Blackhole blackhole) {
+    stream().map(v -> v + 1).forEach(blackhole::consume);
+  }
+  @Benchmark
+  public void gatherer_map(Integration integration, Blackhole blackhole) {
+    stream().gather(map(integration.greedy, (Integer v) -> v + 1)).forEach(blackhole::consume);
+  }
+
+  @Benchmark
+  public void stream_takeWhile(Blackhole blackhole) {
+    var half = size / 2;
+    stream().takeWhile(v -> v < half).forEach(blackhole::consume);
+  }
+  @Benchmark
+  public void gatherer_takeWhile(Blackhole blackhole) {
+    var half = size / 2;
+    stream().gather(takeWhile((Integer v) -> v < half)).forEach(blackhole::consume);
+  }
+
+  @Benchmark
+  public void stream_limit(Blackhole blackhole) {
+    stream().limit(size / 2).forEach(blackhole::consume);
+  }
+  @Benchmark
+  public void gatherer_limit(Blackhole blackhole) {
+    stream().gather(limit(size / 2)).forEach(blackhole::consume);
+  }
+
+  @Benchmark
+  public void gatherers_windowFixed(Blackhole blackhole) {
+    stream().gather(Gatherers.windowFixed(2)).forEach(blackhole::consume);
+  }
+  @Benchmark
+  public void gatherer_groupBy2(Integration integration, Blackhole blackhole) {
+    stream().gather(groupBy2(integration.greedy)).forEach(blackhole::consume);
+  }
+
+  @Benchmark
+  public int gatherers_fold() {
+    return stream().gather(Gatherers.fold(supplier(() -> 0), (Integer counter, Integer _) -> counter + 1)).findFirst().orElseThrow();
+  }
+  @Benchmark
+  public int gatherer_fold(Integration integration) {
+    return stream().gather(fold(integration.greedy)).findFirst().orElseThrow();
+  }
+
+  @Benchmark
+  public int stream_reduce() {
+    return stream().map(_ -> 1).reduce(0, Integer::sum);
+  }
+  @Benchmark
+  public int gatherer_reduce(Integration integration) {
+    return stream().gather(reduce(integration.greedy)).findFirst().orElseThrow();
+  }
+
+  @Benchmark
+  public int stream_findIndex() {
+    var target = size / 2;
+    return IntStream.range(0, integers.size())
+        .filter(i -> integers.get(i) == target)
+        .findFirst().orElse(-1);
+  }
+  @Benchmark
+  public int gatherer_findIndex() {
+    var target = size / 2;
+    return stream().gather(findIndex((Integer v) -> v == target)).findFirst().orElse(-1);
+  }
+
+  @Benchmark
+  public void stream_windowBy(Blackhole blackhole) {
+    // no JDK counterpart, groupingBy on the header index is the closest
+    stream().collect(Collectors.groupingBy(v -> v / 100 * 100, Collectors.toList()))
+        .forEach((header, items) -> blackhole.consume(new Section(header, items.subList(1, items.size()))));
+  }
+  @Benchmark
+  public void gatherer_windowBy(Integration integration, Blackhole blackhole) {
+    stream().gather(windowBy(integration.greedy, (Integer v) -> v % 100 == 0, Collectors.toList(), Section::new)).forEach(blackhole::consume);
+  }
+
+  @Benchmark
+  public List<Integer> stream_collect_toList() {
+    return stream().collect(Collectors.toList());
+  }
+  @Benchmark
+  public List<Integer> gatherer_asGatherer_toList(Integration integration) {
+    return stream().gather(asGatherer(integration.greedy, Collectors.<Integer>toList())).findFirst().orElseThrow();
+  }
+
+  @Benchmark
+  public int stream_collect_summingInt() {
+    return stream().collect(Collectors.summingInt(v -> v));
+  }
+  @Benchmark
+  public int gatherer_asCollector_reduce(Integration integration) {
+    return stream().collect(asCollector(Gatherer.of(
+        () -> new int[1],
+        integrator(integration.greedy, (int[] box, Integer element, Gatherer.Downstream<? super Integer> _) -> {
+          box[0] += element;
+          return true;
+        }),
+        operator((int[] box1, int[] box2) -> new int[] { box1[0] + box2[0] }),
+        (box, downstream) -> downstream.push(box[0]))));
+  }
+}
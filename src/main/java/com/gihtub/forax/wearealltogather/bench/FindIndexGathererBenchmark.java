@@ -0,0 +1,117 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Gatherer;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _18_findIndex.java and _28_findIndex_parallel.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class FindIndexGathererBenchmark {
+
+  private final List<Integer> integers = IntStream.range(0, 10_000_000).boxed().toList();
+  private final int target = 6_000_000;
+
+  static <T> Gatherer<T, ?, Integer> findIndexSequential(Predicate<? super T> predicate) {
+    return Gatherer.ofSequential(
+        () -> new Object() { int index; },
+        Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+          var index = state.index++;
+          if (predicate.test(element)) {
+            return downstream.push(index);
+          }
+          return true;
+        }));
+  }
+
+  static <T> Gatherer<T, ?, Integer> findIndex(Predicate<? super T> predicate) {
+    class State {
+      int count;
+      int index = -1;
+    }
+    return Gatherer.of(
+        State::new,
+        (state, element, _) -> {
+          if (predicate.test(element)) {
+            state.index = state.count;
+            return false;
+          }
+          state.count++;
+          return true;
+        },
+        (s1, s2) -> {
+          if (s1.index == -1) {
+            s1.index = s2.index == -1 ? -1 : s1.count + s2.index;
+            s1.count += s2.count;
+          }
+          return s1;
+        },
+        (state, downstream) -> {
+          if (state.index != -1) {
+            downstream.push(state.index);
+          }
+        });
+  }
+
+  static <T> int findIndex(List<? extends T> list, Predicate<? super T> predicate) {
+    Objects.requireNonNull(predicate);
+    var first = new AtomicInteger(Integer.MAX_VALUE);
+    IntStream.range(0, list.size())
+        .parallel()
+        .boxed()
+        .gather(Gatherer.<Integer, Integer>of((_, index, _) -> {
+          if (index > first.get()) {
+            return false;
+          }
+          if (predicate.test(list.get(index))) {
+            first.accumulateAndGet(index, Math::min);
+            return false;
+          }
+          return true;
+        }))
+        .forEach(_ -> {});
+    var index = first.get();
+    return index == Integer.MAX_VALUE ? -1 : index;
+  }
+
+  @Benchmark
+  public int gatherer_findIndexSequential() {
+    return integers.stream().gather(findIndexSequential(v -> v == target)).findFirst().orElse(-1);
+  }
+  @Benchmark
+  public int gatherer_findIndex_sequential() {
+    return integers.stream().gather(findIndex(v -> v == target)).findFirst().orElse(-1);
+  }
+  @Benchmark
+  public int gatherer_findIndex_parallel() {
+    return integers.parallelStream().gather(findIndex(v -> v == target)).findFirst().orElse(-1);
+  }
+  @Benchmark
+  public int gatherer_findIndex_list() {
+    return findIndex(integers, v -> v == target);
+  }
+  @Benchmark
+  public int stream_range_filter_findFirst_parallel() {
+    return IntStream.range(0, integers.size()).parallel().filter(i -> integers.get(i) == target).findFirst().orElse(-1);
+  }
+}
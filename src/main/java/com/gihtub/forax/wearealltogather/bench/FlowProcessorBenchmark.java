@@ -0,0 +1,342 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Gatherer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _41_flowProcessor.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class FlowProcessorBenchmark {
+
+  private static final int COUNT = 1_000_000;
+  private static final int BATCH_SIZE = 256;
+
+  static <T, R> Flow.Processor<T, R> asProcessor(Gatherer<T, ?, R> gatherer, int batchSize) {
+    return _asProcessor(gatherer, batchSize);
+  }
+
+  static <T, A, R> Flow.Processor<T, R> _asProcessor(Gatherer<T, A, R> gatherer, int batchSize) {
+    Objects.requireNonNull(gatherer);
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize < 1");
+    }
+    var integrator = gatherer.integrator();
+    var finisher = gatherer.finisher();
+    class GathererProcessor implements Flow.Processor<T, R>, Flow.Subscription, Gatherer.Downstream<R> {
+      private final A state = gatherer.initializer().get();
+      private final ConcurrentLinkedQueue<R> queue = new ConcurrentLinkedQueue<>();
+      private final AtomicInteger queueSize = new AtomicInteger();
+      private final AtomicLong demand = new AtomicLong();
+      private final AtomicLong outstanding = new AtomicLong();  // requested from upstream but not received yet
+      private final AtomicInteger wip = new AtomicInteger();
+      private final AtomicBoolean subscribed = new AtomicBoolean();
+      private volatile Flow.Subscription upstream;
+      private volatile Flow.Subscriber<? super R> subscriber;
+      private volatile boolean cancelled;
+      private volatile boolean cancelUpstream;  // the upstream is cancelled by the drain loop
+      private volatile boolean done;  // no more elements will be queued
+      private volatile Throwable error;
+      private boolean stopped;  // only accessed by the upstream signals
+      private boolean terminated;  // only accessed by the drain loop
+      private boolean upstreamCancelled;  // only accessed by the drain loop
+
+      // Flow.Publisher
+      @Override
+      public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+          subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {}
+            @Override
+            public void cancel() {}
+          });
+          subscriber.onError(new IllegalStateException("only one subscriber is supported"));
+          return;
+        }
+        this.subscriber = subscriber;
+        subscriber.onSubscribe(this);
+        drain();
+      }
+
+      // Flow.Subscription, used by the subscriber
+      @Override
+      public void request(long n) {
+        if (n <= 0) {  // rule 3.9
+          cancelUpstream = true;
+          error = new IllegalArgumentException("request " + n + " <= 0");
+          done = true;
+          drain();
+          return;
+        }
+        demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+        drain();
+      }
+
+      @Override
+      public void cancel() {
+        cancelled = true;
+        cancelUpstream = true;
+        drain();
+      }
+
+      // Gatherer.Downstream, used by the integrator and the finisher
+      @Override
+      public boolean push(R element) {
+        if (cancelled) {
+          return false;
+        }
+        queue.offer(element);
+        queueSize.incrementAndGet();
+        return true;
+      }
+
+      @Override
+      public boolean isRejecting() {
+        return cancelled;
+      }
+
+      // Flow.Subscriber
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription);
+        if (upstream != null) {
+          subscription.cancel();  // rule 2.5
+          return;
+        }
+        upstream = subscription;
+        drain();
+      }
+
+      @Override
+      public void onNext(T item) {
+        Objects.requireNonNull(item);
+        outstanding.decrementAndGet();
+        if (stopped) {
+          return;
+        }
+        try {
+          if (!integrator.integrate(state, item, this)) {
+            stopped = true;
+            cancelUpstream = true;
+            finisher.accept(state, this);
+            done = true;
+          }
+        } catch (RuntimeException | Error e) {  // rule 2.13, onNext() must return normally
+          stopped = true;
+          cancelUpstream = true;
+          error = e;
+          done = true;
+        }
+        drain();
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable);
+        if (stopped) {
+          return;
+        }
+        stopped = true;
+        error = throwable;
+        done = true;
+        drain();
+      }
+
+      @Override
+      public void onComplete() {
+        if (stopped) {
+          return;
+        }
+        stopped = true;
+        try {
+          finisher.accept(state, this);
+        } catch (RuntimeException | Error e) {
+          error = e;
+        }
+        done = true;
+        drain();
+      }
+
+      private void drain() {
+        if (wip.getAndIncrement() != 0) {
+          return;
+        }
+        var missed = 1;
+        do {
+          if (cancelUpstream && !upstreamCancelled) {  // rule 2.7, request() and cancel() are called serially
+            var upstream = this.upstream;
+            if (upstream != null) {
+              upstreamCancelled = true;
+              upstream.cancel();
+            }
+          }
+          var subscriber = this.subscriber;
+          if (subscriber != null && !terminated) {
+            if (cancelled) {
+              queue.clear();
+              terminated = true;
+            } else {
+              R element;
+              while (demand.get() > 0 && (element = queue.poll()) != null) {
+                queueSize.decrementAndGet();
+                demand.decrementAndGet();
+                subscriber.onNext(element);
+              }
+              if (done && queue.isEmpty()) {
+                terminated = true;
+                var error = this.error;
+                if (error != null) {
+                  subscriber.onError(error);
+                } else {
+                  subscriber.onComplete();
+                }
+              } else {
+                requestUpstream();
+              }
+            }
+          }
+          missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+      }
+
+      private void requestUpstream() {
+        var upstream = this.upstream;
+        if (upstream == null || done || cancelUpstream || demand.get() == 0 || queueSize.get() >= batchSize) {
+          return;
+        }
+        var outstanding = this.outstanding.get();
+        if (outstanding > batchSize / 2) {
+          return;
+        }
+        var n = batchSize - outstanding;
+        this.outstanding.addAndGet(n);
+        upstream.request(n);
+      }
+    }
+    return new GathererProcessor();
+  }
+
+  // the processor of the javadoc of SubmissionPublisher, with a filter
+  static final class TransformProcessor<T, R> extends SubmissionPublisher<R> implements Flow.Processor<T, R> {
+    private final Predicate<? super T> predicate;
+    private final Function<? super T, ? extends R> function;
+    private Flow.Subscription subscription;
+
+    TransformProcessor(Predicate<? super T> predicate, Function<? super T, ? extends R> function) {
+      this.predicate = predicate;
+      this.function = function;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      (this.subscription = subscription).request(1);
+    }
+
+    @Override
+    public void onNext(T item) {
+      subscription.request(1);
+      if (predicate.test(item)) {
+        submit(function.apply(item));
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      closeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      close();
+    }
+  }
+
+  static <T, R> Gatherer<T, ?, R> filterMap(Predicate<? super T> predicate, Function<? super T, ? extends R> function) {
+    return Gatherer.of(Gatherer.Integrator.ofGreedy((_, element, downstream) -> {
+      if (predicate.test(element)) {
+        return downstream.push(function.apply(element));
+      }
+      return true;
+    }));
+  }
+
+  static long run(Flow.Processor<Integer, Integer> processor) throws InterruptedException {
+    var latch = new CountDownLatch(1);
+    var sum = new AtomicLong();
+    processor.subscribe(new Flow.Subscriber<>() {
+      private Flow.Subscription subscription;
+      private int received;
+      private long total;
+
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        (this.subscription = subscription).request(BATCH_SIZE);
+      }
+
+      @Override
+      public void onNext(Integer item) {
+        total += item;
+        if (++received == BATCH_SIZE) {
+          received = 0;
+          subscription.request(BATCH_SIZE);
+        }
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        latch.countDown();
+      }
+
+      @Override
+      public void onComplete() {
+        sum.set(total);
+        latch.countDown();
+      }
+    });
+    try (var publisher = new SubmissionPublisher<Integer>()) {
+      publisher.subscribe(processor);
+      for (var i = 0; i < COUNT; i++) {
+        publisher.submit(i);
+      }
+    }
+    latch.await();
+    return sum.get();
+  }
+
+  @Benchmark
+  public long submissionPublisher_transformProcessor() throws InterruptedException {
+    return run(new TransformProcessor<Integer, Integer>(v -> (v & 1) == 0, v -> v + 1));
+  }
+
+  @Benchmark
+  public long gatherer_asProcessor() throws InterruptedException {
+    return run(asProcessor(filterMap((Integer v) -> (v & 1) == 0, v -> v + 1), BATCH_SIZE));
+  }
+}
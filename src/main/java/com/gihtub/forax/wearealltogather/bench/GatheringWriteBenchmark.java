@@ -0,0 +1,194 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Gatherer;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _40_gatheringWrite.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class GatheringWriteBenchmark {
+
+  private final List<String> lines = IntStream.range(0, 1_000_000).mapToObj(i -> "record " + i + " of the pipeline").toList();
+  private Path path;
+
+  @Setup
+  public void setup() throws IOException {
+    path = Files.createTempFile("gathering-write", ".txt");
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.delete(path);
+  }
+
+  record BatchAck(long batch, int records, long bytes) {}
+
+  static <T> Gatherer<T, ?, BatchAck> gatheringWrite(GatheringByteChannel channel, BiConsumer<? super T, ? super ByteBuffer> encoder,
+                                               int bufferSize, int bufferCount, int maxRecords, Duration maxDelay) {
+    Objects.requireNonNull(channel);
+    Objects.requireNonNull(encoder);
+    Objects.requireNonNull(maxDelay);
+    if (bufferSize < 1 || bufferCount < 1 || maxRecords < 1) {
+      throw new IllegalArgumentException("bufferSize, bufferCount or maxRecords < 1");
+    }
+    var maxDelayNanos = maxDelay.toNanos();
+    class State {
+      final ByteBuffer[] buffers = new ByteBuffer[bufferCount];
+      int current;  // the index of the buffer being filled
+      int records;
+      long batch;
+      long batchStart;
+
+      State() {
+        for (var i = 0; i < buffers.length; i++) {
+          buffers[i] = ByteBuffer.allocateDirect(bufferSize);
+        }
+      }
+
+      // returns false if there is no room in the buffers
+      boolean encode(T element) {
+        for (;;) {
+          var buffer = buffers[current];
+          var position = buffer.position();
+          try {
+            encoder.accept(element, buffer);
+            return true;
+          } catch (BufferOverflowException e) {
+            buffer.position(position);
+            if (position == 0) {
+              throw new IllegalArgumentException("record too big for a buffer of size " + bufferSize, e);
+            }
+            if (current == buffers.length - 1) {
+              return false;
+            }
+            current++;
+          }
+        }
+      }
+
+      boolean add(T element, Gatherer.Downstream<? super BatchAck> downstream) {
+        if (records == 0) {
+          batchStart = System.nanoTime();
+        }
+        if (!encode(element)) {
+          if (!flush(downstream)) {
+            return false;
+          }
+          batchStart = System.nanoTime();
+          if (!encode(element)) {
+            throw new AssertionError();
+          }
+        }
+        records++;
+        if (records == maxRecords || System.nanoTime() - batchStart >= maxDelayNanos) {
+          return flush(downstream);
+        }
+        return true;
+      }
+
+      boolean flush(Gatherer.Downstream<? super BatchAck> downstream) {
+        if (records == 0) {
+          return true;
+        }
+        var length = current + 1;
+        var bytes = 0L;
+        for (var i = 0; i < length; i++) {
+          bytes += buffers[i].flip().remaining();
+        }
+        try {
+          var written = 0L;
+          while (written < bytes) {
+            written += channel.write(buffers, 0, length);
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        for (var i = 0; i < length; i++) {
+          buffers[i].clear();
+        }
+        var ack = new BatchAck(batch++, records, bytes);
+        current = 0;
+        records = 0;
+        return downstream.push(ack);
+      }
+    }
+    return Gatherer.ofSequential(
+        State::new,
+        Gatherer.Integrator.ofGreedy((state, element, downstream) -> state.add(element, downstream)),
+        (state, downstream) -> state.flush(downstream)
+    );
+  }
+
+  // encodes a string followed by '\n' in UTF-8, without allocation if the string is ASCII
+  static void putLine(String line, ByteBuffer buffer) {
+    var length = line.length();
+    if (buffer.remaining() < length + 1) {
+      throw new BufferOverflowException();
+    }
+    for (var i = 0; i < length; i++) {
+      var c = line.charAt(i);
+      if (c >= 0x80) {
+        var position = buffer.position() - i;
+        buffer.position(position);
+        buffer.put(line.getBytes(StandardCharsets.UTF_8)).put((byte) '\n');
+        return;
+      }
+      buffer.put((byte) c);
+    }
+    buffer.put((byte) '\n');
+  }
+
+  @Benchmark
+  public long bufferedWriter_write() throws IOException {
+    try (var writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING)) {
+      for (var line : lines) {
+        writer.write(line);
+        writer.newLine();
+      }
+    }
+    return Files.size(path);
+  }
+
+  @Benchmark
+  public long gatherer_gatheringWrite() throws IOException {
+    try (var channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      return lines.stream()
+          .gather(gatheringWrite(channel, (String line, ByteBuffer buffer) -> putLine(line, buffer), 64 * 1024, 16, 100_000, Duration.ofMillis(100)))
+          .mapToLong(BatchAck::bytes)
+          .sum();
+    }
+  }
+}
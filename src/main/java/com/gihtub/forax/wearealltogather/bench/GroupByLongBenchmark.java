@@ -0,0 +1,252 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Gatherer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// see _39_groupByLong.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class GroupByLongBenchmark {
+
+  // 10M values, around 1M distinct keys
+  private final List<Long> values = new Random(0).longs(10_000_000, 0, 1_000_000).boxed().toList();
+
+  record LongEntry(long key, long value) {}
+
+  static final class LongTable {
+    private static final long EMPTY = Long.MIN_VALUE;  // the key Long.MIN_VALUE is stored aside
+
+    private final boolean offHeap;
+    private final int maxCapacity;
+    private MemorySegment slots;
+    private int capacity;
+    private int size;
+    private boolean hasEmptyKey;
+    private long emptyKeyValue;
+
+    LongTable(int maxCapacity, boolean offHeap) {
+      this.offHeap = offHeap;
+      this.maxCapacity = maxCapacity;
+      capacity = Math.min(16, maxCapacity);
+      slots = allocate(capacity);
+    }
+
+    private MemorySegment allocate(int capacity) {
+      var segment = offHeap
+          ? Arena.ofAuto().allocate(16L * capacity, 8)
+          : MemorySegment.ofArray(new long[2 * capacity]);
+      for (var i = 0L; i < 2L * capacity; i += 2) {
+        segment.setAtIndex(ValueLayout.JAVA_LONG, i, EMPTY);
+      }
+      return segment;
+    }
+
+    static long mix(long hash) {  // fmix64 of MurmurHash3
+      hash ^= hash >>> 33;
+      hash *= 0xff51afd7ed558ccdL;
+      hash ^= hash >>> 33;
+      hash *= 0xc4ceb9fe1a85ec53L;
+      hash ^= hash >>> 33;
+      return hash;
+    }
+
+    int size() {
+      return size + (hasEmptyKey ? 1 : 0);
+    }
+
+    // a table is full if adding a new key may exceed the load factor at max capacity
+    boolean isFull() {
+      return capacity == maxCapacity && size >= capacity - (capacity >>> 2);
+    }
+
+    boolean canMerge(LongTable table) {
+      return size + table.size < maxCapacity - (maxCapacity >>> 2);
+    }
+
+    // the caller has to check that the table is not full before
+    void merge(long key, long value, LongBinaryOperator aggregator) {
+      if (key == EMPTY) {
+        emptyKeyValue = hasEmptyKey ? aggregator.applyAsLong(emptyKeyValue, value) : value;
+        hasEmptyKey = true;
+        return;
+      }
+      var mask = capacity - 1;
+      for (var slot = (int) mix(key) & mask;; slot = (slot + 1) & mask) {
+        var index = 2L * slot;
+        var slotKey = slots.getAtIndex(ValueLayout.JAVA_LONG, index);
+        if (slotKey == key) {
+          var slotValue = slots.getAtIndex(ValueLayout.JAVA_LONG, index + 1);
+          slots.setAtIndex(ValueLayout.JAVA_LONG, index + 1, aggregator.applyAsLong(slotValue, value));
+          return;
+        }
+        if (slotKey == EMPTY) {
+          slots.setAtIndex(ValueLayout.JAVA_LONG, index, key);
+          slots.setAtIndex(ValueLayout.JAVA_LONG, index + 1, value);
+          if (++size >= capacity - (capacity >>> 2) && capacity < maxCapacity) {
+            resize();
+          }
+          return;
+        }
+      }
+    }
+
+    private void resize() {
+      var oldSlots = slots;
+      var oldCapacity = capacity;
+      capacity = oldCapacity << 1;
+      slots = allocate(capacity);
+      var mask = capacity - 1;
+      for (var i = 0L; i < 2L * oldCapacity; i += 2) {
+        var key = oldSlots.getAtIndex(ValueLayout.JAVA_LONG, i);
+        if (key == EMPTY) {
+          continue;
+        }
+        var slot = (int) mix(key) & mask;
+        while (slots.getAtIndex(ValueLayout.JAVA_LONG, 2L * slot) != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        slots.setAtIndex(ValueLayout.JAVA_LONG, 2L * slot, key);
+        slots.setAtIndex(ValueLayout.JAVA_LONG, 2L * slot + 1, oldSlots.getAtIndex(ValueLayout.JAVA_LONG, i + 1));
+      }
+    }
+
+    void mergeAll(LongTable table, LongBinaryOperator aggregator) {
+      if (table.hasEmptyKey) {
+        merge(EMPTY, table.emptyKeyValue, aggregator);
+      }
+      for (var i = 0L; i < 2L * table.capacity; i += 2) {
+        var key = table.slots.getAtIndex(ValueLayout.JAVA_LONG, i);
+        if (key != EMPTY) {
+          merge(key, table.slots.getAtIndex(ValueLayout.JAVA_LONG, i + 1), aggregator);
+        }
+      }
+    }
+
+    // pushes all the entries and clears the table
+    boolean pushAll(Gatherer.Downstream<? super LongEntry> downstream) {
+      if (hasEmptyKey) {
+        hasEmptyKey = false;
+        if (!downstream.push(new LongEntry(EMPTY, emptyKeyValue))) {
+          return false;
+        }
+      }
+      for (var i = 0L; i < 2L * capacity; i += 2) {
+        var key = slots.getAtIndex(ValueLayout.JAVA_LONG, i);
+        if (key == EMPTY) {
+          continue;
+        }
+        slots.setAtIndex(ValueLayout.JAVA_LONG, i, EMPTY);
+        size--;
+        if (!downstream.push(new LongEntry(key, slots.getAtIndex(ValueLayout.JAVA_LONG, i + 1)))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  static <T> Gatherer<T, ?, LongEntry> groupByLong(ToLongFunction<? super T> keyMapper, ToLongFunction<? super T> valueMapper,
+                                            LongBinaryOperator aggregator, long memoryBudget, boolean offHeap) {
+    Objects.requireNonNull(keyMapper);
+    Objects.requireNonNull(valueMapper);
+    Objects.requireNonNull(aggregator);
+    if (memoryBudget < 16 * 16) {
+      throw new IllegalArgumentException("memoryBudget < 256");
+    }
+    // 16 bytes by slot, on heap the slots are stored in a long[] so 2 * maxCapacity must be a valid array length
+    var maxCapacity = Integer.highestOneBit((int) Math.min(offHeap ? 1 << 30 : 1 << 29, memoryBudget / 16));
+    class State {
+      LongTable table = new LongTable(maxCapacity, offHeap);
+      final ArrayList<LongTable> tables = new ArrayList<>();  // the tables of the other splits that did not fit
+    }
+    return Gatherer.of(
+        State::new,
+        Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+          var table = state.table;
+          if (table.isFull() && !table.pushAll(downstream)) {
+            return false;
+          }
+          table.merge(keyMapper.applyAsLong(element), valueMapper.applyAsLong(element), aggregator);
+          return true;
+        }),
+        (s1, s2) -> {
+          if (s1.table.size() < s2.table.size()) {  // merge the smaller table into the bigger one
+            var table = s1.table;
+            s1.table = s2.table;
+            s2.table = table;
+          }
+          if (s1.table.canMerge(s2.table)) {
+            s1.table.mergeAll(s2.table, aggregator);
+          } else {
+            s1.tables.add(s2.table);
+          }
+          s1.tables.addAll(s2.tables);
+          return s1;
+        },
+        (state, downstream) -> {
+          if (!state.table.pushAll(downstream)) {
+            return;
+          }
+          for (var table : state.tables) {
+            if (!table.pushAll(downstream)) {
+              return;
+            }
+          }
+        }
+    );
+  }
+
+  @Benchmark
+  public Map<Long, Long> collectors_groupingBy_counting() {
+    return values.stream().collect(Collectors.groupingBy(v -> v, Collectors.counting()));
+  }
+  @Benchmark
+  public Map<Long, Long> collectors_groupingBy_counting_parallel() {
+    return values.parallelStream().collect(Collectors.groupingBy(v -> v, Collectors.counting()));
+  }
+
+  @Benchmark
+  public void gatherer_groupByLong_heap(Blackhole blackhole) {
+    values.stream().gather(groupByLong((Long v) -> v, _ -> 1, Long::sum, 64 << 20, false)).forEach(blackhole::consume);
+  }
+  @Benchmark
+  public void gatherer_groupByLong_heap_parallel(Blackhole blackhole) {
+    values.parallelStream().gather(groupByLong((Long v) -> v, _ -> 1, Long::sum, 64 << 20, false)).forEach(blackhole::consume);
+  }
+  @Benchmark
+  public void gatherer_groupByLong_offHeap_parallel(Blackhole blackhole) {
+    values.parallelStream().gather(groupByLong((Long v) -> v, _ -> 1, Long::sum, 64 << 20, true)).forEach(blackhole::consume);
+  }
+  @Benchmark
+  public void gatherer_groupByLong_budget1MB_parallel(Blackhole blackhole) {
+    values.parallelStream().gather(groupByLong((Long v) -> v, _ -> 1, Long::sum, 1 << 20, false)).forEach(blackhole::consume);
+  }
+}
@@ -0,0 +1,286 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Gatherer;
+import java.util.stream.Gatherers;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _33_mapConcurrent.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class MapConcurrentBenchmark {
+
+  private final List<Integer> integers = IntStream.range(0, 1_000).boxed().toList();
+
+  record Options<T>(int maxConcurrency, boolean ordered, int batchSize,
+                    long maxInFlightWeight, ToLongFunction<? super T> weigher, boolean failFast) {
+    Options {
+      if (maxConcurrency < 1) {
+        throw new IllegalArgumentException("maxConcurrency < 1");
+      }
+      if (batchSize < 1) {
+        throw new IllegalArgumentException("batchSize < 1");
+      }
+      if (maxInFlightWeight < 1) {
+        throw new IllegalArgumentException("maxInFlightWeight < 1");
+      }
+      Objects.requireNonNull(weigher);
+    }
+
+    static <T> Options<T> of(int maxConcurrency) {
+      return new Options<>(maxConcurrency, true, 1, Long.MAX_VALUE, _ -> 0, true);
+    }
+
+    Options<T> unordered() {
+      return new Options<>(maxConcurrency, false, batchSize, maxInFlightWeight, weigher, failFast);
+    }
+
+    Options<T> batch(int batchSize) {
+      return new Options<>(maxConcurrency, ordered, batchSize, maxInFlightWeight, weigher, failFast);
+    }
+
+    Options<T> maxInFlightWeight(long maxInFlightWeight, ToLongFunction<? super T> weigher) {
+      return new Options<>(maxConcurrency, ordered, batchSize, maxInFlightWeight, weigher, failFast);
+    }
+
+    Options<T> collectErrors() {
+      return new Options<>(maxConcurrency, ordered, batchSize, maxInFlightWeight, weigher, false);
+    }
+  }
+
+  static final class MapConcurrentException extends RuntimeException {
+    MapConcurrentException(String message) {
+      super(message);
+    }
+
+    MapConcurrentException(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  static <T, R> Gatherer<T, ?, R> mapConcurrent(Options<? super T> options, Function<? super T, ? extends R> mapper) {
+    Objects.requireNonNull(options);
+    Objects.requireNonNull(mapper);
+    class Task extends FutureTask<List<R>> {
+      private final long weight;
+      private final BlockingQueue<Task> completions;
+
+      Task(List<T> batch, long weight, BlockingQueue<Task> completions) {
+        super(() -> {
+          var results = new ArrayList<R>(batch.size());
+          for (var element : batch) {
+            results.add(mapper.apply(element));
+          }
+          return results;
+        });
+        this.weight = weight;
+        this.completions = completions;
+      }
+
+      @Override
+      protected void done() {
+        completions.add(this);
+      }
+    }
+    class State {
+      private final ArrayDeque<Task> pending = new ArrayDeque<>();  // submission order
+      private final LinkedBlockingQueue<Task> completions = new LinkedBlockingQueue<>();
+      private final ArrayList<Throwable> errors = new ArrayList<>();
+      private ArrayList<T> batch = new ArrayList<>();
+      private long batchWeight;
+      private long inFlightWeight;
+
+      boolean integrate(T element, Gatherer.Downstream<? super R> downstream) {
+        batch.add(element);
+        batchWeight += options.weigher().applyAsLong(element);
+        if (batch.size() == options.batchSize()) {
+          if (!submit(downstream)) {
+            return false;
+          }
+        }
+        if (!drain(downstream, false)) {
+          return false;
+        }
+        if (downstream.isRejecting()) {
+          cancel();
+          return false;
+        }
+        return true;
+      }
+
+      boolean submit(Gatherer.Downstream<? super R> downstream) {
+        while (pending.size() == options.maxConcurrency()
+            || (!pending.isEmpty() && inFlightWeight + batchWeight > options.maxInFlightWeight())) {
+          if (!drain(downstream, true)) {
+            return false;
+          }
+        }
+        var task = new Task(batch, batchWeight, completions);
+        pending.add(task);
+        inFlightWeight += batchWeight;
+        batch = new ArrayList<>();
+        batchWeight = 0;
+        Thread.startVirtualThread(task);
+        return true;
+      }
+
+      // if blocking, wait for at least one completion
+      boolean drain(Gatherer.Downstream<? super R> downstream, boolean blocking) {
+        for (;;) {
+          Task task;
+          if (blocking) {
+            try {
+              task = completions.take();
+            } catch (InterruptedException e) {
+              cancel();
+              Thread.currentThread().interrupt();
+              throw new CancellationException("interrupted");
+            }
+            blocking = false;
+          } else {
+            task = completions.poll();
+            if (task == null) {
+              return true;
+            }
+          }
+          if (options.failFast() && task.state() == Future.State.FAILED) {
+            emit(task, downstream);  // throws without waiting for the tasks submitted before
+          }
+          if (options.ordered()) {
+            while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+              if (!emit(pending.pollFirst(), downstream)) {
+                return false;
+              }
+            }
+            continue;
+          }
+          if (pending.remove(task) && !emit(task, downstream)) {  // already removed if cancelled
+            return false;
+          }
+        }
+      }
+
+      boolean emit(Task task, Gatherer.Downstream<? super R> downstream) {
+        inFlightWeight -= task.weight;
+        List<R> results;
+        try {
+          results = task.get();  // the task is done
+        } catch (InterruptedException | CancellationException e) {
+          throw new AssertionError(e);
+        } catch (ExecutionException e) {
+          var cause = e.getCause();
+          if (options.failFast()) {
+            cancel();
+            switch (cause) {
+              case RuntimeException runtimeException -> throw runtimeException;
+              case Error error -> throw error;
+              default -> throw new MapConcurrentException(cause.toString(), cause);
+            }
+          }
+          errors.add(cause);
+          return true;
+        }
+        for (var result : results) {
+          if (!downstream.push(result)) {
+            cancel();
+            return false;
+          }
+        }
+        return true;
+      }
+
+      void cancel() {
+        for (var task : pending) {
+          task.cancel(true);
+        }
+        pending.clear();
+        batch.clear();
+      }
+
+      void finish(Gatherer.Downstream<? super R> downstream) {
+        if (downstream.isRejecting()) {
+          cancel();
+          return;
+        }
+        if (!batch.isEmpty() && !submit(downstream)) {
+          return;
+        }
+        while (!pending.isEmpty()) {
+          if (!drain(downstream, true)) {
+            return;
+          }
+        }
+        if (!errors.isEmpty()) {
+          var exception = new MapConcurrentException(errors.size() + " batch(es) failed");
+          errors.forEach(exception::addSuppressed);
+          throw exception;
+        }
+      }
+    }
+    return Gatherer.ofSequential(
+        State::new,
+        (state, element, downstream) -> state.integrate(element, downstream),
+        (state, downstream) -> state.finish(downstream));
+  }
+
+  // simulated remote service, 1ms of latency, one element every 100 takes 20ms
+  static Integer service(Integer value) {
+    LockSupport.parkNanos(value % 100 == 0 ? 20_000_000 : 1_000_000);
+    return value;
+  }
+
+  @Benchmark
+  public List<Integer> gatherers_mapConcurrent() {
+    return integers.stream().gather(Gatherers.mapConcurrent(32, MapConcurrentBenchmark::service)).toList();
+  }
+  @Benchmark
+  public List<Integer> gatherer_mapConcurrent_ordered() {
+    return integers.stream().gather(mapConcurrent(Options.of(32), MapConcurrentBenchmark::service)).toList();
+  }
+  @Benchmark
+  public List<Integer> gatherer_mapConcurrent_unordered() {
+    return integers.stream().gather(mapConcurrent(Options.of(32).unordered(), MapConcurrentBenchmark::service)).toList();
+  }
+  @Benchmark
+  public List<Integer> gatherer_mapConcurrent_unordered_batch4() {
+    return integers.stream().gather(mapConcurrent(Options.of(8).unordered().batch(4), MapConcurrentBenchmark::service)).toList();
+  }
+
+  @Benchmark
+  public List<Integer> gatherers_mapConcurrent_first10() {
+    return integers.stream().gather(Gatherers.mapConcurrent(32, MapConcurrentBenchmark::service)).limit(10).toList();
+  }
+  @Benchmark
+  public List<Integer> gatherer_mapConcurrent_unordered_first10() {
+    return integers.stream().gather(mapConcurrent(Options.of(32).unordered(), MapConcurrentBenchmark::service)).limit(10).toList();
+  }
+}
@@ -93,6 +93,56 @@ public class MapGathererBenchmark {
 		return new MapperGatherer();
 	}
 
+  // see _23_fusion.java
+  @FunctionalInterface
+  interface Step {
+    Object SKIP = new Object();
+
+    Object apply(Object value);
+
+    default Step andThen(Step next) {
+      return value -> {
+        var result = apply(value);
+        if (result == SKIP) {
+          return result;
+        }
+        return next.apply(result);
+      };
+    }
+  }
+
+  record FusedGatherer<T, R>(Step step) implements Gatherer<T, Void, R> {
+    @Override
+    @SuppressWarnings("unchecked")
+    public Integrator<Void, T, R> integrator() {
+      return Integrator.ofGreedy((_, element, downstream) -> {
+        var result = step.apply(element);
+        if (result == Step.SKIP) {
+          return true;
+        }
+        return downstream.push((R) result);
+      });
+    }
+
+    @Override
+    public BinaryOperator<Void> combiner() {
+      return (_, _) -> null;
+    }
+
+    @Override
+    public <RR> Gatherer<T, ?, RR> andThen(Gatherer<? super R, ?, ? extends RR> that) {
+      if (that instanceof FusedGatherer<?, ?> fused) {
+        return new FusedGatherer<>(step.andThen(fused.step));
+      }
+      return Gatherer.super.andThen(that);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T, R> Gatherer<T, ?, R> mapFused(Function<? super T, ? extends R> mapper) {
+    return new FusedGatherer<>(value -> mapper.apply((T) value));
+  }
+
   /*
 	@Benchmark
 	public int stream_map_sum() {
@@ -132,6 +182,10 @@ public class MapGathererBenchmark {
 	public int gatherer_mapsublcass_collect() {
 		return integers.stream().gather(mapSubclass(v -> v + 1)).collect(Collectors.summingInt(v -> v));
 	}
+  @Benchmark
+  public int gatherer_mapfused_collect() {
+    return integers.stream().gather(mapFused(v -> v + 1)).collect(Collectors.summingInt(v -> v));
+  }
 	@Benchmark
 	public int stream_collect() {
 		return integers.stream().collect(Collectors.summingInt(v -> v + 1));
@@ -169,6 +223,14 @@ public class MapGathererBenchmark {
 				.gather(mapSubclass(v -> v + 3))
 				.collect(Collectors.summingInt(v -> v));
 	}
+  @Benchmark
+  public int gatherer_mapfused_collect_3() {
+    return integers.stream()
+        .gather(mapFused(v -> v + 1))
+        .gather(mapFused(v -> v + 2))
+        .gather(mapFused(v -> v + 3))
+        .collect(Collectors.summingInt(v -> v));
+  }
 	@Benchmark
 	public int gatherer_map_collect_andThen_3() {
 		return integers.stream()
@@ -187,6 +249,12 @@ public class MapGathererBenchmark {
 				.gather(mapSubclass((Integer v) -> v + 1).andThen(mapSubclass(v -> v + 2)).andThen(mapSubclass(v -> v + 3)))
 				.collect(Collectors.summingInt(v -> v));
 	}
+  @Benchmark
+  public int gatherer_mapfused_collect_andThen_3() {
+    return integers.stream()
+        .gather(mapFused((Integer v) -> v + 1).andThen(mapFused(v -> v + 2)).andThen(mapFused(v -> v + 3)))
+        .collect(Collectors.summingInt(v -> v));
+  }
 
   /*
 	@Benchmark
@@ -0,0 +1,165 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Gatherer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _26_mappedLines.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class MappedLinesBenchmark {
+
+  private Path path;
+
+  @Setup
+  public void setup() throws IOException {
+    path = Files.createTempFile("lines", ".txt");
+    Files.write(path, IntStream.range(0, 5_000_000).mapToObj(i -> "item" + i).toList());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.delete(path);
+  }
+
+  static Stream<String> lines(Path path, Charset charset) throws IOException {
+    if (!charset.equals(StandardCharsets.UTF_8) && !charset.equals(StandardCharsets.US_ASCII)
+        && !charset.equals(StandardCharsets.ISO_8859_1)) {
+      throw new IllegalArgumentException("'\\n' may not be encoded as a single byte in " + charset);
+    }
+    class LineSpliterator implements Spliterator<String> {
+      private final MemorySegment segment;
+      private long start;
+      private final long end;
+
+      LineSpliterator(MemorySegment segment, long start, long end) {
+        this.segment = segment;
+        this.start = start;
+        this.end = end;
+      }
+
+      private long indexOfNewline(long from) {
+        for (var i = from; i < end; i++) {
+          if (segment.get(ValueLayout.JAVA_BYTE, i) == '\n') {
+            return i;
+          }
+        }
+        return -1;
+      }
+
+      @Override
+      public boolean tryAdvance(Consumer<? super String> action) {
+        if (start >= end) {
+          return false;
+        }
+        var newline = indexOfNewline(start);
+        var lineEnd = newline == -1 ? end : newline;
+        if (lineEnd > start && segment.get(ValueLayout.JAVA_BYTE, lineEnd - 1) == '\r') {
+          lineEnd--;
+        }
+        var bytes = segment.asSlice(start, lineEnd - start).toArray(ValueLayout.JAVA_BYTE);
+        start = newline == -1 ? end : newline + 1;
+        action.accept(new String(bytes, charset));
+        return true;
+      }
+
+      @Override
+      public Spliterator<String> trySplit() {
+        var middle = start + (end - start) / 2;
+        var newline = indexOfNewline(middle);
+        if (newline == -1 || newline + 1 >= end) {
+          return null;
+        }
+        var prefix = new LineSpliterator(segment, start, newline + 1);
+        start = newline + 1;
+        return prefix;
+      }
+
+      @Override
+      public long estimateSize() {
+        return end - start;
+      }
+
+      @Override
+      public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+      }
+    }
+    var arena = Arena.ofShared();
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      var segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+      return StreamSupport.stream(new LineSpliterator(segment, 0, segment.byteSize()), false)
+          .onClose(arena::close);
+    } catch (IOException | RuntimeException e) {
+      arena.close();
+      throw e;
+    }
+  }
+
+  static <T> Gatherer<T, ?, T> filter(Predicate<? super T> predicate) {
+    return Gatherer.of(Gatherer.Integrator.ofGreedy((_, element, downstream) -> {
+      if (predicate.test(element)) {
+        return downstream.push(element);
+      }
+      return true;
+    }));
+  }
+
+  @Benchmark
+  public long files_lines_filter_count() throws IOException {
+    try (var lines = Files.lines(path)) {
+      return lines.gather(filter(s -> s.endsWith("1"))).count();
+    }
+  }
+  @Benchmark
+  public long files_lines_parallel_filter_count() throws IOException {
+    try (var lines = Files.lines(path)) {
+      return lines.parallel().gather(filter(s -> s.endsWith("1"))).count();
+    }
+  }
+  @Benchmark
+  public long mapped_lines_filter_count() throws IOException {
+    try (var lines = lines(path, StandardCharsets.UTF_8)) {
+      return lines.gather(filter(s -> s.endsWith("1"))).count();
+    }
+  }
+  @Benchmark
+  public long mapped_lines_parallel_filter_count() throws IOException {
+    try (var lines = lines(path, StandardCharsets.UTF_8)) {
+      return lines.parallel().gather(filter(s -> s.endsWith("1"))).count();
+    }
+  }
+}
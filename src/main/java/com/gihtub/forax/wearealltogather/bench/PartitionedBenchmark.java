@@ -0,0 +1,334 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Gatherer;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// see _45_partitioned.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class PartitionedBenchmark {
+
+  @Param({ "1", "4", "8" })
+  private int partitions;
+
+  @Param({ "0", "100" })
+  private int tokens;  // the CPU cost of an element
+
+  record Event(int device, long value) {}
+
+  private final List<Event> events = IntStream.range(0, 1_000_000)
+      .mapToObj(i -> new Event(i % 1_000, i))
+      .toList();
+
+  static final int PARTITION_BATCH_SIZE = 256;
+  static final Cleaner PARTITION_CLEANER = Cleaner.create();
+
+  static <T, K, R> Gatherer<T, ?, R> partitioned(Gatherer<T, ?, R> gatherer, Function<? super T, ? extends K> keyMapper,
+                                                 int partitions, int queueCapacity) {
+    return _partitioned(gatherer, keyMapper, partitions, queueCapacity);
+  }
+
+  static <T, K, A, R> Gatherer<T, ?, R> _partitioned(Gatherer<T, A, R> gatherer, Function<? super T, ? extends K> keyMapper,
+                                                     int partitions, int queueCapacity) {
+    Objects.requireNonNull(gatherer);
+    Objects.requireNonNull(keyMapper);
+    if (partitions < 1 || queueCapacity < 1) {
+      throw new IllegalArgumentException("partitions or queueCapacity < 1");
+    }
+    var initializer = gatherer.initializer();
+    var integrator = gatherer.integrator();
+    var finisher = gatherer.finisher();
+    var end = new ArrayList<T>();  // sent to a worker after the last batch, compared by identity
+    var done = new ArrayList<R>();  // sent by a worker after its last results, compared by identity
+    class KeyState {
+      final A state = initializer.get();
+      boolean stopped;
+    }
+    class Worker implements Runnable, Gatherer.Downstream<R> {
+      final ArrayBlockingQueue<ArrayList<T>> queue = new ArrayBlockingQueue<>(queueCapacity);
+      final BlockingQueue<ArrayList<R>> results;
+      final HashMap<K, KeyState> states = new HashMap<>();
+      ArrayList<R> batch = new ArrayList<>();
+
+      Worker(BlockingQueue<ArrayList<R>> results) {
+        this.results = results;
+      }
+
+      @Override
+      public boolean push(R element) {
+        batch.add(element);
+        return true;
+      }
+
+      void flush() {
+        if (!batch.isEmpty()) {
+          results.add(batch);
+          batch = new ArrayList<>();
+        }
+      }
+
+      @Override
+      public void run() {
+        try {
+          for (;;) {
+            var elements = queue.take();
+            if (elements == end) {
+              break;
+            }
+            for (var element : elements) {
+              var keyState = states.computeIfAbsent(keyMapper.apply(element), _ -> new KeyState());
+              if (!keyState.stopped && !integrator.integrate(keyState.state, element, this)) {
+                keyState.stopped = true;
+              }
+            }
+            flush();
+          }
+          for (var keyState : states.values()) {
+            finisher.accept(keyState.state, this);
+          }
+          flush();
+          results.add(done);
+        } catch (InterruptedException e) {
+          // stopped by the stream thread
+        }
+      }
+    }
+    class State {
+      final LinkedBlockingQueue<ArrayList<R>> results = new LinkedBlockingQueue<>();  // drained by the stream thread
+      final AtomicReference<Throwable> error = new AtomicReference<>();
+      final Worker[] workers = new Worker[partitions];
+      final Thread[] threads = new Thread[partitions];
+      final ArrayList<ArrayList<T>> batches = new ArrayList<>();  // one batch per partition, not sent yet
+
+      State() {
+        var results = this.results;  // the threads must not reference the state
+        var error = this.error;
+        for (var i = 0; i < partitions; i++) {
+          var worker = new Worker(results);
+          workers[i] = worker;
+          batches.add(new ArrayList<>());
+          threads[i] = Thread.ofPlatform()
+              .name("partition-" + i)
+              .daemon()
+              .uncaughtExceptionHandler((_, throwable) -> {
+                error.compareAndSet(null, throwable);
+                results.add(done);
+              })
+              .start(worker);
+        }
+        var threads = this.threads;
+        PARTITION_CLEANER.register(this, () -> {
+          for (var thread : threads) {
+            thread.interrupt();
+          }
+        });
+      }
+
+      void stop() {
+        for (var thread : threads) {
+          thread.interrupt();
+        }
+      }
+
+      // returns the number of workers that have finished
+      int pushResults(Gatherer.Downstream<? super R> downstream, boolean wait) throws InterruptedException {
+        var finished = 0;
+        ArrayList<R> results;
+        while ((results = wait ? this.results.take() : this.results.poll()) != null) {
+          var throwable = error.get();
+          if (throwable != null) {
+            throw new IllegalStateException("a partition has failed", throwable);
+          }
+          if (results == done) {
+            finished++;
+            if (wait) {
+              return finished;
+            }
+            continue;
+          }
+          for (var result : results) {
+            if (!downstream.push(result)) {
+              return -1;
+            }
+          }
+        }
+        return finished;
+      }
+
+      // returns false if the downstream does not want more elements
+      boolean send(int partition, ArrayList<T> batch, Gatherer.Downstream<? super R> downstream) throws InterruptedException {
+        var queue = workers[partition].queue;
+        if (!queue.offer(batch)) {
+          while (!queue.offer(batch, 1, TimeUnit.MILLISECONDS)) {  // pushes the results while waiting
+            if (pushResults(downstream, false) == -1) {
+              return false;
+            }
+          }
+        }
+        return true;
+      }
+
+      boolean integrate(T element, Gatherer.Downstream<? super R> downstream) {
+        try {
+          var hash = Objects.hashCode(keyMapper.apply(element)) * 0x9E3779B9;  // the high bits are well mixed
+          var partition = (int) (((hash & 0xFFFF_FFFFL) * partitions) >>> 32);
+          var batch = batches.get(partition);
+          batch.add(element);
+          if (batch.size() == PARTITION_BATCH_SIZE) {
+            batches.set(partition, new ArrayList<>());
+            if (!send(partition, batch, downstream) || pushResults(downstream, false) == -1) {
+              stop();
+              return false;
+            }
+          }
+          return true;
+        } catch (InterruptedException e) {
+          stop();
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        } catch (RuntimeException | Error e) {
+          stop();
+          throw e;
+        }
+      }
+
+      void finish(Gatherer.Downstream<? super R> downstream) {
+        try {
+          for (var i = 0; i < partitions; i++) {
+            var batch = batches.get(i);
+            if ((!batch.isEmpty() && !send(i, batch, downstream)) || !send(i, end, downstream)) {
+              stop();
+              return;
+            }
+          }
+          for (var finished = 0; finished < partitions;) {
+            var count = pushResults(downstream, true);
+            if (count == -1) {
+              stop();
+              return;
+            }
+            finished += count;
+          }
+        } catch (InterruptedException e) {
+          stop();
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        } catch (RuntimeException | Error e) {
+          stop();
+          throw e;
+        }
+      }
+    }
+    return Gatherer.ofSequential(
+        State::new,
+        (state, element, downstream) -> state.integrate(element, downstream),
+        (state, downstream) -> state.finish(downstream)
+    );
+  }
+
+  static <T> Gatherer<T, ?, List<T>> windowFixed(int windowSize) {
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("windowSize < 1");
+    }
+    return Gatherer.ofSequential(
+        () -> new Object() { ArrayList<T> list = new ArrayList<>(); },
+        Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+          state.list.add(element);
+          if (state.list.size() == windowSize) {
+            var list = state.list;
+            state.list = new ArrayList<>();
+            return downstream.push(list);
+          }
+          return true;
+        }),
+        (state, downstream) -> {
+          if (!state.list.isEmpty()) {
+            downstream.push(state.list);
+          }
+        }
+    );
+  }
+
+  // the average of each window of windowSize elements, sequential
+  static Gatherer<Event, ?, Long> windowAverage(int windowSize, int tokens) {
+    return Gatherer.ofSequential(
+        () -> new Object() { long sum; int count; },
+        Gatherer.Integrator.ofGreedy((state, event, downstream) -> {
+          Blackhole.consumeCPU(tokens);
+          state.sum += event.value();
+          if (++state.count == windowSize) {
+            var average = state.sum / windowSize;
+            state.sum = 0;
+            state.count = 0;
+            return downstream.push(average);
+          }
+          return true;
+        }),
+        (state, downstream) -> {
+          if (state.count != 0) {
+            downstream.push(state.sum / state.count);
+          }
+        });
+  }
+
+  // one instance of the gatherer per key, on the stream thread
+  static <T, K, A, R> Gatherer<T, ?, R> byKey(Gatherer<T, A, R> gatherer, Function<? super T, ? extends K> keyMapper) {
+    var initializer = gatherer.initializer();
+    var integrator = gatherer.integrator();
+    var finisher = gatherer.finisher();
+    return Gatherer.<T, HashMap<K, A>, R>ofSequential(
+        HashMap::new,
+        Gatherer.Integrator.ofGreedy((states, element, downstream) -> {
+          var state = states.computeIfAbsent(keyMapper.apply(element), _ -> initializer.get());
+          return integrator.integrate(state, element, downstream);
+        }),
+        (states, downstream) -> {
+          for (var state : states.values()) {
+            finisher.accept(state, downstream);
+          }
+        });
+  }
+
+  @Benchmark
+  public long gatherer_byKey_sequential() {
+    return events.stream()
+        .gather(byKey(windowAverage(10, tokens), Event::device))
+        .count();
+  }
+
+  @Benchmark
+  public long gatherer_partitioned() {
+    return events.stream()
+        .gather(partitioned(windowAverage(10, tokens), Event::device, partitions, 64))
+        .count();
+  }
+}
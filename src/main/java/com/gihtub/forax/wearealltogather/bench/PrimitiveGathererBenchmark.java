@@ -0,0 +1,240 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Gatherer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _22_primitiveGatherer.java
+// run with -prof gc to check that the IntGatherer versions do not allocate per element
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class PrimitiveGathererBenchmark {
+
+  private final List<String> strings = IntStream.range(0, 100_000).mapToObj(i -> "item" + i).toList();
+
+  interface IntGatherer<A> {
+    @FunctionalInterface
+    interface Downstream {
+      boolean push(int element);
+    }
+
+    @FunctionalInterface
+    interface Integrator<A> {
+      boolean integrate(A state, int element, Downstream downstream);
+
+      static <A> Greedy<A> ofGreedy(Greedy<A> greedy) {
+        return greedy;
+      }
+
+      @FunctionalInterface
+      interface Greedy<A> extends Integrator<A> {}
+    }
+
+    default Supplier<A> initializer() {
+      return () -> null;
+    }
+    Integrator<A> integrator();
+    default BiConsumer<A, Downstream> finisher() {
+      return (_, _) -> {};
+    }
+
+    static <A> IntGatherer<A> of(Supplier<A> initializer, Integrator<A> integrator, BiConsumer<A, Downstream> finisher) {
+      Objects.requireNonNull(initializer);
+      Objects.requireNonNull(integrator);
+      Objects.requireNonNull(finisher);
+      record IntGathererImpl<A>(Supplier<A> initializer, Integrator<A> integrator, BiConsumer<A, Downstream> finisher)
+          implements IntGatherer<A> {}
+      return new IntGathererImpl<>(initializer, integrator, finisher);
+    }
+  }
+
+  static <A> IntStream gather(IntStream stream, IntGatherer<A> gatherer) {
+    var spliterator = stream.spliterator();
+    var initializer = gatherer.initializer();
+    var integrator = gatherer.integrator();
+    var finisher = gatherer.finisher();
+    var greedy = integrator instanceof IntGatherer.Integrator.Greedy<A>;
+    class GatheringSpliterator implements Spliterator.OfInt, IntConsumer, IntGatherer.Downstream {
+      private final A state = initializer.get();
+      private IntConsumer action;
+      private boolean stop, done;
+      private int[] buffer = new int[16];
+      private int start, end;
+
+      @Override
+      public boolean push(int element) {
+        if (action != null) {
+          action.accept(element);
+          return true;
+        }
+        if (end == buffer.length) {
+          buffer = Arrays.copyOf(buffer, end << 1);
+        }
+        buffer[end++] = element;
+        return true;
+      }
+
+      @Override
+      public void accept(int element) {
+        if (!integrator.integrate(state, element, this)) {
+          stop = true;
+        }
+      }
+
+      @Override
+      public boolean tryAdvance(IntConsumer action) {
+        while (start == end) {
+          if (done) {
+            return false;
+          }
+          start = end = 0;
+          if (stop || !spliterator.tryAdvance((IntConsumer) this)) {
+            done = true;
+            finisher.accept(state, this);
+          }
+        }
+        action.accept(buffer[start++]);
+        return true;
+      }
+
+      @Override
+      public void forEachRemaining(IntConsumer action) {
+        while (start < end) {
+          action.accept(buffer[start++]);
+        }
+        if (done) {
+          return;
+        }
+        this.action = action;
+        if (greedy) {
+          spliterator.forEachRemaining((IntConsumer) this);
+        } else {
+          while (!stop && spliterator.tryAdvance((IntConsumer) this)) {
+            // empty
+          }
+        }
+        done = true;
+        finisher.accept(state, this);
+      }
+
+      @Override
+      public OfInt trySplit() {
+        return null;
+      }
+      @Override
+      public long estimateSize() {
+        return Long.MAX_VALUE;
+      }
+      @Override
+      public int characteristics() {
+        return spliterator.characteristics() & ORDERED;
+      }
+    }
+    return StreamSupport.intStream(new GatheringSpliterator(), false);
+  }
+
+  static IntGatherer<?> intMap(IntUnaryOperator mapper) {
+    return IntGatherer.<Void>of(() -> null, IntGatherer.Integrator.ofGreedy((_, element, downstream) -> {
+      return downstream.push(mapper.applyAsInt(element));
+    }), (_, _) -> {});
+  }
+
+  static IntGatherer<?> intFilter(IntPredicate predicate) {
+    return IntGatherer.<Void>of(() -> null, IntGatherer.Integrator.ofGreedy((_, element, downstream) -> {
+      if (predicate.test(element)) {
+        return downstream.push(element);
+      }
+      return true;
+    }), (_, _) -> {});
+  }
+
+  static IntGatherer<?> intSum() {
+    return IntGatherer.of(
+        () -> new Object() { int sum; },
+        IntGatherer.Integrator.ofGreedy((state, element, _) -> {
+          state.sum += element;
+          return true;
+        }),
+        (state, downstream) -> {
+          downstream.push(state.sum);
+        });
+  }
+
+  static <T, R> Gatherer<T, ?, R> map(Function<? super T, ? extends R> mapper) {
+    return Gatherer.of(Gatherer.Integrator.ofGreedy((_, element, downstream) -> {
+      return downstream.push(mapper.apply(element));
+    }));
+  }
+
+  static <T> Gatherer<T, ?, T> filter(Predicate<? super T> predicate) {
+    return Gatherer.of(Gatherer.Integrator.ofGreedy((_, element, downstream) -> {
+      if (predicate.test(element)) {
+        return downstream.push(element);
+      }
+      return true;
+    }));
+  }
+
+  @Benchmark
+  public int stream_mapToInt_sum() {
+    return strings.stream().mapToInt(String::length).map(v -> v + 1).sum();
+  }
+  @Benchmark
+  public int gatherer_map_sum() {
+    return strings.stream().gather(map((String s) -> s.length() + 1)).reduce(0, Integer::sum);
+  }
+  @Benchmark
+  public int intgatherer_map_sum() {
+    return gather(strings.stream().mapToInt(String::length), intMap(v -> v + 1)).sum();
+  }
+
+  @Benchmark
+  public int stream_mapToInt_filter_sum() {
+    return strings.stream().mapToInt(String::length).map(v -> v + 1).filter(v -> (v & 1) == 0).sum();
+  }
+  @Benchmark
+  public int gatherer_map_filter_sum() {
+    return strings.stream()
+        .gather(map(String::length))
+        .gather(map((Integer v) -> v + 1))
+        .gather(filter(v -> (v & 1) == 0))
+        .reduce(0, Integer::sum);
+  }
+  @Benchmark
+  public int intgatherer_map_filter_sum() {
+    return gather(gather(strings.stream().mapToInt(String::length), intMap(v -> v + 1)), intFilter(v -> (v & 1) == 0)).sum();
+  }
+
+  @Benchmark
+  public int intgatherer_fold_sum() {
+    return gather(strings.stream().mapToInt(String::length), intSum()).findFirst().orElseThrow();
+  }
+}
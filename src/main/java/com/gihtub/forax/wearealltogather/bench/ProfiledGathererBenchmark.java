@@ -0,0 +1,229 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Gatherer;
+import java.util.stream.IntStream;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _31_profiled.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class ProfiledGathererBenchmark {
+
+  private final List<Integer> integers = IntStream.range(0, 100_000).boxed().toList();
+
+  private final StageProfile disabledProfile = new StageProfile("disabled", 1_024);
+  private final StageProfile sampledProfile = new StageProfile("sampled", 1_024);
+  private final StageProfile fullProfile = new StageProfile("full", 1);
+  {
+    disabledProfile.enable(false);
+  }
+
+  record Stats(String name, long elementsIn, long elementsOut, long estimatedIntegratorNanos,
+               long shortCircuits, long combinerCalls, long stateAllocations) {}
+
+  @Name("wearealltogather.GathererStage")
+  @Label("Gatherer Stage")
+  @Category("Stream")
+  static class GathererStageEvent extends Event {
+    @Label("Stage")
+    String stage;
+    @Label("Elements In")
+    long elementsIn;
+    @Label("Elements Out")
+    long elementsOut;
+    @Label("Estimated Integrator Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long estimatedIntegratorNanos;
+    @Label("Short Circuits")
+    long shortCircuits;
+  }
+
+  static final class StageProfile {
+    private final String name;
+    private final int samplingPeriod;
+    private volatile boolean enabled = true;
+    private final LongAdder elementsIn = new LongAdder();
+    private final LongAdder elementsOut = new LongAdder();
+    private final LongAdder sampledNanos = new LongAdder();
+    private final LongAdder sampledElements = new LongAdder();
+    private final LongAdder shortCircuits = new LongAdder();
+    private final LongAdder combinerCalls = new LongAdder();
+    private final LongAdder stateAllocations = new LongAdder();
+
+    StageProfile(String name, int samplingPeriod) {
+      this.name = Objects.requireNonNull(name);
+      if (samplingPeriod < 1) {
+        throw new IllegalArgumentException("samplingPeriod < 1");
+      }
+      this.samplingPeriod = samplingPeriod;
+    }
+
+    void enable(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    Stats stats() {
+      var sampled = sampledElements.sum();
+      var in = elementsIn.sum();
+      return new Stats(name, in, elementsOut.sum(), sampled == 0 ? 0 : sampledNanos.sum() * in / sampled,
+          shortCircuits.sum(), combinerCalls.sum(), stateAllocations.sum());
+    }
+  }
+
+  static <T, R> Gatherer<T, ?, R> profiled(StageProfile profile, Gatherer<T, ?, R> gatherer) {
+    return _profiled(profile, gatherer);
+  }
+
+  static <T, A, R> Gatherer<T, ?, R> _profiled(StageProfile profile, Gatherer<T, A, R> gatherer) {
+    Objects.requireNonNull(profile);
+    Objects.requireNonNull(gatherer);
+    var initializer = gatherer.initializer();
+    var integrator = gatherer.integrator();
+    var combiner = gatherer.combiner();
+    var finisher = gatherer.finisher();
+    class State implements Gatherer.Downstream<R> {
+      private A state;
+      private final boolean enabled;
+      private Gatherer.Downstream<? super R> downstream;
+      private long elementsIn, elementsOut, sampledNanos, sampledElements, shortCircuits;
+
+      State(A state, boolean enabled) {
+        this.state = state;
+        this.enabled = enabled;
+      }
+
+      @Override
+      public boolean push(R element) {
+        elementsOut++;
+        return downstream.push(element);
+      }
+
+      @Override
+      public boolean isRejecting() {
+        return downstream.isRejecting();
+      }
+
+      boolean integrate(T element, Gatherer.Downstream<? super R> downstream) {
+        if (!enabled) {
+          return integrator.integrate(state, element, downstream);
+        }
+        this.downstream = downstream;
+        boolean result;
+        if (elementsIn++ % profile.samplingPeriod == 0) {
+          var start = System.nanoTime();
+          result = integrator.integrate(state, element, this);
+          sampledNanos += System.nanoTime() - start;
+          sampledElements++;
+        } else {
+          result = integrator.integrate(state, element, this);
+        }
+        if (!result) {
+          shortCircuits++;
+        }
+        return result;
+      }
+
+      State combine(State other) {
+        if (enabled || other.enabled) {
+          profile.combinerCalls.increment();
+        }
+        state = combiner.apply(state, other.state);
+        elementsIn += other.elementsIn;
+        elementsOut += other.elementsOut;
+        sampledNanos += other.sampledNanos;
+        sampledElements += other.sampledElements;
+        shortCircuits += other.shortCircuits;
+        return this;
+      }
+
+      void finish(Gatherer.Downstream<? super R> downstream) {
+        if (!enabled) {
+          finisher.accept(state, downstream);
+          return;
+        }
+        this.downstream = downstream;
+        finisher.accept(state, this);
+        profile.elementsIn.add(elementsIn);
+        profile.elementsOut.add(elementsOut);
+        profile.sampledNanos.add(sampledNanos);
+        profile.sampledElements.add(sampledElements);
+        profile.shortCircuits.add(shortCircuits);
+        var event = new GathererStageEvent();
+        if (event.isEnabled()) {
+          event.stage = profile.name;
+          event.elementsIn = elementsIn;
+          event.elementsOut = elementsOut;
+          event.estimatedIntegratorNanos = sampledElements == 0 ? 0 : sampledNanos * elementsIn / sampledElements;
+          event.shortCircuits = shortCircuits;
+          event.commit();
+        }
+      }
+    }
+    Supplier<State> stateInitializer = () -> {
+      var enabled = profile.enabled;
+      if (enabled) {
+        profile.stateAllocations.increment();
+      }
+      return new State(initializer.get(), enabled);
+    };
+    var stateIntegrator = integrator instanceof Gatherer.Integrator.Greedy<?, ?, ?>
+        ? Gatherer.Integrator.<State, T, R>ofGreedy((state, element, downstream) -> state.integrate(element, downstream))
+        : Gatherer.Integrator.<State, T, R>of((state, element, downstream) -> state.integrate(element, downstream));
+    var stateCombiner = combiner == Gatherer.defaultCombiner()
+        ? Gatherer.<State>defaultCombiner()
+        : (BinaryOperator<State>) State::combine;
+    return Gatherer.of(stateInitializer, stateIntegrator, stateCombiner, (state, downstream) -> state.finish(downstream));
+  }
+
+  static <T, R> Gatherer<T, ?, R> map(Function<? super T, ? extends R> mapper) {
+    return Gatherer.of(Gatherer.Integrator.ofGreedy((_, element, downstream) -> {
+      return downstream.push(mapper.apply(element));
+    }));
+  }
+
+  @Benchmark
+  public int gatherer_map_collect() {
+    return integers.stream().gather(map(v -> v + 1)).collect(Collectors.summingInt(v -> v));
+  }
+  @Benchmark
+  public int gatherer_profiled_disabled_map_collect() {
+    return integers.stream().gather(profiled(disabledProfile, map((Integer v) -> v + 1))).collect(Collectors.summingInt(v -> v));
+  }
+  @Benchmark
+  public int gatherer_profiled_sampled_map_collect() {
+    return integers.stream().gather(profiled(sampledProfile, map((Integer v) -> v + 1))).collect(Collectors.summingInt(v -> v));
+  }
+  @Benchmark
+  public int gatherer_profiled_full_map_collect() {
+    return integers.stream().gather(profiled(fullProfile, map((Integer v) -> v + 1))).collect(Collectors.summingInt(v -> v));
+  }
+}
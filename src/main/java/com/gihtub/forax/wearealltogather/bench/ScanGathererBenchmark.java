@@ -0,0 +1,345 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.Gatherer;
+import java.util.stream.Gatherers;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _34_scan_parallel.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class ScanGathererBenchmark {
+
+  @Param({ "1000000", "10000000" })
+  private int size;
+
+  private long[] longs;
+  private double[] doubles;
+  private List<Long> boxed;
+
+  @Setup
+  public void setup() {
+    longs = LongStream.range(0, size).toArray();
+    doubles = DoubleStream.iterate(0, v -> v + 0.5).limit(size).toArray();
+    boxed = Arrays.stream(longs).boxed().toList();
+  }
+
+  static <T> Gatherer<T, ?, T> scan(BinaryOperator<T> operator) {
+    Objects.requireNonNull(operator);
+    class Segment {
+      final ArrayList<T> prefixes = new ArrayList<>();
+      boolean hasCarry;
+      T carry;
+
+      void applyCarry() {
+        if (!hasCarry) {
+          return;
+        }
+        prefixes.replaceAll(prefix -> operator.apply(carry, prefix));
+      }
+    }
+    class State {
+      final ArrayList<Segment> segments = new ArrayList<>();  // one segment per split, in encounter order
+      boolean empty = true;
+      T total;
+
+      State() {
+        segments.add(new Segment());
+      }
+    }
+    return Gatherer.of(
+        State::new,
+        Gatherer.Integrator.ofGreedy((state, element, _) -> {
+          state.total = state.empty ? element : operator.apply(state.total, element);
+          state.empty = false;
+          state.segments.getFirst().prefixes.add(state.total);
+          return true;
+        }),
+        (s1, s2) -> {
+          if (s1.empty) {
+            return s2;
+          }
+          if (s2.empty) {
+            return s1;
+          }
+          for (var segment : s2.segments) {
+            segment.carry = segment.hasCarry ? operator.apply(s1.total, segment.carry) : s1.total;
+            segment.hasCarry = true;
+            s1.segments.add(segment);
+          }
+          s1.total = operator.apply(s1.total, s2.total);
+          return s1;
+        },
+        (state, downstream) -> {
+          if (state.segments.size() != 1) {
+            state.segments.parallelStream().forEach(Segment::applyCarry);
+          }
+          for (var segment : state.segments) {
+            for (var prefix : segment.prefixes) {
+              if (!downstream.push(prefix)) {
+                return;
+              }
+            }
+          }
+        }
+    );
+  }
+
+  static Gatherer<Long, ?, Long> scanLong(LongBinaryOperator operator) {
+    Objects.requireNonNull(operator);
+    class Segment {
+      long[] prefixes = new long[16];
+      int size;
+      boolean hasCarry;
+      long carry;
+
+      void add(long prefix) {
+        if (size == prefixes.length) {
+          prefixes = Arrays.copyOf(prefixes, size << 1);
+        }
+        prefixes[size++] = prefix;
+      }
+
+      void applyCarry() {
+        if (!hasCarry) {
+          return;
+        }
+        for (var i = 0; i < size; i++) {
+          prefixes[i] = operator.applyAsLong(carry, prefixes[i]);
+        }
+      }
+    }
+    class State {
+      final ArrayList<Segment> segments = new ArrayList<>();
+      boolean empty = true;
+      long total;
+
+      State() {
+        segments.add(new Segment());
+      }
+    }
+    return Gatherer.of(
+        State::new,
+        Gatherer.Integrator.ofGreedy((state, element, _) -> {
+          state.total = state.empty ? element : operator.applyAsLong(state.total, element);
+          state.empty = false;
+          state.segments.getFirst().add(state.total);
+          return true;
+        }),
+        (s1, s2) -> {
+          if (s1.empty) {
+            return s2;
+          }
+          if (s2.empty) {
+            return s1;
+          }
+          for (var segment : s2.segments) {
+            segment.carry = segment.hasCarry ? operator.applyAsLong(s1.total, segment.carry) : s1.total;
+            segment.hasCarry = true;
+            s1.segments.add(segment);
+          }
+          s1.total = operator.applyAsLong(s1.total, s2.total);
+          return s1;
+        },
+        (state, downstream) -> {
+          if (state.segments.size() == 1) {
+            state.segments.getFirst().applyCarry();
+          } else {
+            state.segments.parallelStream().forEach(Segment::applyCarry);
+          }
+          for (var segment : state.segments) {
+            for (var i = 0; i < segment.size; i++) {
+              if (!downstream.push(segment.prefixes[i])) {
+                return;
+              }
+            }
+          }
+        }
+    );
+  }
+
+  static Gatherer<Double, ?, Double> scanDouble(DoubleBinaryOperator operator) {
+    Objects.requireNonNull(operator);
+    class Segment {
+      double[] prefixes = new double[16];
+      int size;
+      boolean hasCarry;
+      double carry;
+
+      void add(double prefix) {
+        if (size == prefixes.length) {
+          prefixes = Arrays.copyOf(prefixes, size << 1);
+        }
+        prefixes[size++] = prefix;
+      }
+
+      void applyCarry() {
+        if (!hasCarry) {
+          return;
+        }
+        for (var i = 0; i < size; i++) {
+          prefixes[i] = operator.applyAsDouble(carry, prefixes[i]);
+        }
+      }
+    }
+    class State {
+      final ArrayList<Segment> segments = new ArrayList<>();
+      boolean empty = true;
+      double total;
+
+      State() {
+        segments.add(new Segment());
+      }
+    }
+    return Gatherer.of(
+        State::new,
+        Gatherer.Integrator.ofGreedy((state, element, _) -> {
+          state.total = state.empty ? element : operator.applyAsDouble(state.total, element);
+          state.empty = false;
+          state.segments.getFirst().add(state.total);
+          return true;
+        }),
+        (s1, s2) -> {
+          if (s1.empty) {
+            return s2;
+          }
+          if (s2.empty) {
+            return s1;
+          }
+          for (var segment : s2.segments) {
+            segment.carry = segment.hasCarry ? operator.applyAsDouble(s1.total, segment.carry) : s1.total;
+            segment.hasCarry = true;
+            s1.segments.add(segment);
+          }
+          s1.total = operator.applyAsDouble(s1.total, s2.total);
+          return s1;
+        },
+        (state, downstream) -> {
+          if (state.segments.size() == 1) {
+            state.segments.getFirst().applyCarry();
+          } else {
+            state.segments.parallelStream().forEach(Segment::applyCarry);
+          }
+          for (var segment : state.segments) {
+            for (var i = 0; i < segment.size; i++) {
+              if (!downstream.push(segment.prefixes[i])) {
+                return;
+              }
+            }
+          }
+        }
+    );
+  }
+
+  static LongStream scanLong(LongStream stream, LongBinaryOperator operator) {
+    Objects.requireNonNull(stream);
+    Objects.requireNonNull(operator);
+    var parallel = stream.isParallel();
+    return StreamSupport.longStream(() -> {
+          var array = stream.toArray();
+          if (parallel) {
+            Arrays.parallelPrefix(array, operator);
+          } else {
+            for (var i = 1; i < array.length; i++) {
+              array[i] = operator.applyAsLong(array[i - 1], array[i]);
+            }
+          }
+          return Arrays.spliterator(array);
+        }, Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.IMMUTABLE, parallel)
+        .onClose(stream::close);
+  }
+
+  static DoubleStream scanDouble(DoubleStream stream, DoubleBinaryOperator operator) {
+    Objects.requireNonNull(stream);
+    Objects.requireNonNull(operator);
+    var parallel = stream.isParallel();
+    return StreamSupport.doubleStream(() -> {
+          var array = stream.toArray();
+          if (parallel) {
+            Arrays.parallelPrefix(array, operator);
+          } else {
+            for (var i = 1; i < array.length; i++) {
+              array[i] = operator.applyAsDouble(array[i - 1], array[i]);
+            }
+          }
+          return Arrays.spliterator(array);
+        }, Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.IMMUTABLE, parallel)
+        .onClose(stream::close);
+  }
+
+  @Benchmark
+  public long[] arrays_parallelPrefix() {
+    var array = longs.clone();
+    Arrays.parallelPrefix(array, Long::sum);
+    return array;
+  }
+
+  @Benchmark
+  public long[] gatherers_scan() {
+    return boxed.stream().gather(Gatherers.scan(() -> 0L, Long::sum)).mapToLong(v -> v).toArray();
+  }
+  @Benchmark
+  public long[] gatherer_scan() {
+    return boxed.stream().gather(scan(Long::sum)).mapToLong(v -> v).toArray();
+  }
+  @Benchmark
+  public long[] gatherer_scan_parallel() {
+    return boxed.parallelStream().gather(scan(Long::sum)).mapToLong(v -> v).toArray();
+  }
+
+  @Benchmark
+  public long[] gatherers_scan_longs() {
+    return Arrays.stream(longs).boxed().gather(Gatherers.scan(() -> 0L, Long::sum)).mapToLong(v -> v).toArray();
+  }
+  @Benchmark
+  public long[] gatherer_scanLong_parallel() {
+    return Arrays.stream(longs).boxed().parallel().gather(scanLong(Long::sum)).mapToLong(v -> v).toArray();
+  }
+  @Benchmark
+  public long[] longStream_scanLong_parallel() {  // no boxing, compare to arrays_parallelPrefix
+    return scanLong(Arrays.stream(longs).parallel(), Long::sum).toArray();
+  }
+
+  @Benchmark
+  public double[] arrays_parallelPrefix_doubles() {
+    var array = doubles.clone();
+    Arrays.parallelPrefix(array, Double::sum);
+    return array;
+  }
+  @Benchmark
+  public double[] gatherer_scanDouble_parallel() {
+    return Arrays.stream(doubles).boxed().parallel().gather(scanDouble(Double::sum)).mapToDouble(v -> v).toArray();
+  }
+  @Benchmark
+  public double[] doubleStream_scanDouble_parallel() {
+    return scanDouble(Arrays.stream(doubles).parallel(), Double::sum).toArray();
+  }
+}
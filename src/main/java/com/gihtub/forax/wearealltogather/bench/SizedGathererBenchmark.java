@@ -0,0 +1,159 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Gatherer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _32_sizedGather.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class SizedGathererBenchmark {
+
+  private final List<String> strings = IntStream.range(0, 100_000).mapToObj(i -> "item" + i).toList();
+
+  static <T, R> Gatherer<T, ?, R> map(Function<? super T, ? extends R> mapper) {
+    return Gatherer.of(Gatherer.Integrator.ofGreedy((_, element, downstream) -> {
+      return downstream.push(mapper.apply(element));
+    }));
+  }
+
+  interface OneToOne<T, A, R> extends Gatherer<T, A, R> {
+    static <T, A, R> OneToOne<T, A, R> of(Supplier<A> initializer, Integrator.Greedy<A, T, R> integrator,
+                                          BinaryOperator<A> combiner) {
+      Objects.requireNonNull(initializer);
+      Objects.requireNonNull(integrator);
+      Objects.requireNonNull(combiner);
+      record OneToOneImpl<T, A, R>(Supplier<A> initializer, Integrator<A, T, R> integrator, BinaryOperator<A> combiner)
+          implements OneToOne<T, A, R> {}
+      return new OneToOneImpl<>(initializer, integrator, combiner);
+    }
+  }
+
+  static <T, R> Stream<R> gather(Stream<T> stream, Gatherer<? super T, ?, R> gatherer) {
+    if (gatherer instanceof OneToOne<? super T, ?, R> oneToOne && (Object) oneToOne.finisher() == Gatherer.defaultFinisher()) {
+      return gatherSized(stream, oneToOne);
+    }
+    return stream.gather(gatherer);
+  }
+
+  static <T, A, R> Stream<R> gatherSized(Stream<T> stream, OneToOne<? super T, A, R> gatherer) {
+    var initializer = gatherer.initializer();
+    var integrator = gatherer.integrator();
+    var splittable = initializer == Gatherer.defaultInitializer() && gatherer.combiner() != Gatherer.defaultCombiner();
+    class SizedSpliterator implements Spliterator<R>, Consumer<T>, Gatherer.Downstream<R> {
+      private final Spliterator<T> spliterator;
+      private final A state;
+      private Consumer<? super R> action;
+
+      SizedSpliterator(Spliterator<T> spliterator) {
+        this.spliterator = spliterator;
+        this.state = initializer.get();
+      }
+
+      @Override
+      public boolean push(R element) {
+        action.accept(element);
+        return true;
+      }
+
+      @Override
+      public void accept(T element) {
+        integrator.integrate(state, element, this);
+      }
+
+      @Override
+      public boolean tryAdvance(Consumer<? super R> action) {
+        this.action = action;
+        return spliterator.tryAdvance(this);
+      }
+
+      @Override
+      public void forEachRemaining(Consumer<? super R> action) {
+        this.action = action;
+        spliterator.forEachRemaining(this);
+      }
+
+      @Override
+      public Spliterator<R> trySplit() {
+        if (!splittable) {
+          return null;
+        }
+        var prefix = spliterator.trySplit();
+        return prefix == null ? null : new SizedSpliterator(prefix);
+      }
+
+      @Override
+      public long estimateSize() {
+        return spliterator.estimateSize();
+      }
+
+      @Override
+      public int characteristics() {
+        return spliterator.characteristics() & (SIZED | SUBSIZED | ORDERED);
+      }
+    }
+    return StreamSupport.stream(new SizedSpliterator(stream.spliterator()), stream.isParallel())
+        .onClose(stream::close);
+  }
+
+  static <T, R> Gatherer<T, ?, R> mapOneToOne(Function<? super T, ? extends R> mapper) {
+    Objects.requireNonNull(mapper);
+    return OneToOne.<T, Void, R>of(
+        Gatherer.defaultInitializer(),
+        Gatherer.Integrator.ofGreedy((_, element, downstream) -> {
+          return downstream.push(mapper.apply(element));
+        }),
+        (_, _) -> null);
+  }
+
+  @Benchmark
+  public long stream_map_count() {
+    return strings.stream().map(String::length).count();
+  }
+  @Benchmark
+  public long gatherer_map_count() {
+    return strings.stream().gather(map(String::length)).count();
+  }
+  @Benchmark
+  public long sized_map_count() {
+    return gather(strings.stream(), mapOneToOne(String::length)).count();
+  }
+
+  @Benchmark
+  public List<Integer> stream_map_toList() {
+    return strings.stream().map(String::length).toList();
+  }
+  @Benchmark
+  public List<Integer> gatherer_map_toList() {
+    return strings.stream().gather(map(String::length)).toList();
+  }
+  @Benchmark
+  public List<Integer> sized_map_toList() {
+    return gather(strings.stream(), mapOneToOne(String::length)).toList();
+  }
+}
@@ -0,0 +1,202 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.Gatherer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _38_sketches.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class SketchBenchmark {
+
+  // 10M ids, around 1M distinct
+  private final List<Long> ids = new Random(0).longs(10_000_000, 0, 1_000_000).boxed().toList();
+
+  static long mix(long hash) {  // fmix64 of MurmurHash3
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  static final class BloomFilter {
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+
+    static void checkArguments(long expectedInsertions, double fpp) {
+      if (expectedInsertions < 1) {
+        throw new IllegalArgumentException("expectedInsertions < 1");
+      }
+      if (!(fpp > 0 && fpp < 1)) {
+        throw new IllegalArgumentException("fpp not in ]0, 1[");
+      }
+    }
+
+    BloomFilter(long expectedInsertions, double fpp) {
+      checkArguments(expectedInsertions, fpp);
+      var bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+      words = new long[Math.toIntExact(Math.max(1, (bits + 63) >>> 6))];
+      bitCount = (long) words.length << 6;
+      hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    // returns true if at least one bit was not set
+    boolean add(long hash) {
+      var h1 = (int) hash;
+      var h2 = (int) (hash >>> 32);
+      var added = false;
+      for (var i = 0; i < hashCount; i++) {
+        var combined = (h1 + (long) i * h2) & Long.MAX_VALUE;
+        var bit = combined % bitCount;
+        var index = (int) (bit >>> 6);
+        var mask = 1L << bit;
+        var word = words[index];
+        if ((word & mask) == 0) {
+          words[index] = word | mask;
+          added = true;
+        }
+      }
+      return added;
+    }
+  }
+
+  static <T> Gatherer<T, ?, T> approximateDistinct(long expectedInsertions, double fpp) {
+    return approximateDistinctBy(element -> element.hashCode(), expectedInsertions, fpp);
+  }
+
+  static <T> Gatherer<T, ?, T> approximateDistinctBy(ToLongFunction<? super T> hashFunction, long expectedInsertions, double fpp) {
+    Objects.requireNonNull(hashFunction);
+    BloomFilter.checkArguments(expectedInsertions, fpp);
+    return Gatherer.ofSequential(
+        () -> new BloomFilter(expectedInsertions, fpp),
+        Gatherer.Integrator.ofGreedy((filter, element, downstream) -> {
+          if (filter.add(mix(hashFunction.applyAsLong(element)))) {
+            return downstream.push(element);
+          }
+          return true;
+        })
+    );
+  }
+
+  static final class HyperLogLog {
+    private final byte[] registers;
+    private final int precision;
+
+    static void checkPrecision(int precision) {
+      if (precision < 4 || precision > 18) {
+        throw new IllegalArgumentException("precision not in [4, 18]");
+      }
+    }
+
+    HyperLogLog(int precision) {
+      checkPrecision(precision);
+      this.precision = precision;
+      registers = new byte[1 << precision];
+    }
+
+    void add(long hash) {
+      var index = (int) (hash >>> (64 - precision));
+      var rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+      if (rank > registers[index]) {
+        registers[index] = rank;
+      }
+    }
+
+    HyperLogLog merge(HyperLogLog hyperLogLog) {
+      for (var i = 0; i < registers.length; i++) {
+        registers[i] = (byte) Math.max(registers[i], hyperLogLog.registers[i]);
+      }
+      return this;
+    }
+
+    long estimate() {
+      var m = registers.length;
+      var sum = 0.0;
+      var zeros = 0;
+      for (var register : registers) {
+        sum += 1.0 / (1L << register);
+        if (register == 0) {
+          zeros++;
+        }
+      }
+      var alpha = switch (m) {
+        case 16 -> 0.673;
+        case 32 -> 0.697;
+        case 64 -> 0.709;
+        default -> 0.7213 / (1 + 1.079 / m);
+      };
+      var estimate = alpha * m * m / sum;
+      if (estimate <= 2.5 * m && zeros != 0) {
+        estimate = m * Math.log((double) m / zeros);  // linear counting for the small cardinalities
+      }
+      return Math.round(estimate);
+    }
+  }
+
+  static <T> Gatherer<T, ?, Long> cardinality(int precision) {
+    return cardinalityBy(element -> element.hashCode(), precision);
+  }
+
+  static <T> Gatherer<T, ?, Long> cardinalityBy(ToLongFunction<? super T> hashFunction, int precision) {
+    Objects.requireNonNull(hashFunction);
+    HyperLogLog.checkPrecision(precision);
+    return Gatherer.of(
+        () -> new HyperLogLog(precision),
+        Gatherer.Integrator.ofGreedy((hyperLogLog, element, _) -> {
+          hyperLogLog.add(mix(hashFunction.applyAsLong(element)));
+          return true;
+        }),
+        HyperLogLog::merge,
+        (hyperLogLog, downstream) -> downstream.push(hyperLogLog.estimate())
+    );
+  }
+
+  @Benchmark
+  public long stream_distinct_count() {
+    return ids.stream().distinct().count();
+  }
+  @Benchmark
+  public long stream_distinct_count_parallel() {
+    return ids.parallelStream().distinct().count();
+  }
+
+  @Benchmark
+  public long gatherer_approximateDistinct_count() {
+    return ids.stream().gather(approximateDistinct(1_000_000, 0.01)).count();
+  }
+  @Benchmark
+  public long gatherer_approximateDistinctBy_count() {
+    return ids.stream().gather(approximateDistinctBy((Long id) -> id, 1_000_000, 0.01)).count();
+  }
+
+  @Benchmark
+  public long gatherer_cardinalityBy() {
+    return ids.stream().gather(cardinalityBy((Long id) -> id, 14)).findFirst().orElseThrow();
+  }
+  @Benchmark
+  public long gatherer_cardinalityBy_parallel() {
+    return ids.parallelStream().gather(cardinalityBy((Long id) -> id, 14)).findFirst().orElseThrow();
+  }
+}
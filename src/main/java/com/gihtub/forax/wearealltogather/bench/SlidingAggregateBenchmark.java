@@ -0,0 +1,321 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Gatherer;
+import java.util.stream.Gatherers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _35_slidingAggregate.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class SlidingAggregateBenchmark {
+
+  @Param({ "10", "1000" })
+  private int windowSize;
+
+  private final List<Integer> integers = new Random(0).ints(1_000_000, 0, 1_000_000).boxed().toList();
+
+  // the last capacity values
+  static final class LongRing {
+    private final long[] values;
+    private int next;
+    private long count;
+
+    LongRing(int capacity) {
+      values = new long[capacity];
+    }
+
+    long count() {
+      return count;
+    }
+
+    boolean isFull() {
+      return count >= values.length;
+    }
+
+    long oldest() {
+      return values[next];
+    }
+
+    void add(long value) {
+      values[next] = value;
+      if (++next == values.length) {
+        next = 0;
+      }
+      count++;
+    }
+  }
+
+  // the candidates for the min (or the max) of the last windowSize values, sorted by value
+  static final class LongMonotonicDeque {
+    private final long[] values;
+    private final long[] positions;
+    private final boolean max;
+    private int head;
+    private int size;
+    private long position;
+
+    LongMonotonicDeque(int windowSize, boolean max) {
+      values = new long[windowSize];
+      positions = new long[windowSize];
+      this.max = max;
+    }
+
+    private int index(int offset) {
+      var index = head + offset;
+      return index >= values.length ? index - values.length : index;
+    }
+
+    void add(long value) {
+      while (size != 0) {
+        var tail = values[index(size - 1)];
+        if (max ? tail > value : tail < value) {
+          break;
+        }
+        size--;
+      }
+      if (size != 0 && positions[head] <= position - values.length) {
+        head = index(1);
+        size--;
+      }
+      var index = index(size);
+      values[index] = value;
+      positions[index] = position++;
+      size++;
+    }
+
+    long count() {
+      return position;
+    }
+
+    long first() {
+      return values[head];
+    }
+  }
+
+  static final class MonotonicDeque<T> {
+    private final Object[] values;
+    private final long[] positions;
+    private final Comparator<? super T> comparator;
+    private int head;
+    private int size;
+    private long position;
+
+    MonotonicDeque(int windowSize, Comparator<? super T> comparator) {
+      values = new Object[windowSize];
+      positions = new long[windowSize];
+      this.comparator = comparator;
+    }
+
+    private int index(int offset) {
+      var index = head + offset;
+      return index >= values.length ? index - values.length : index;
+    }
+
+    void add(T value) {
+      while (size != 0) {
+        var tailIndex = index(size - 1);
+        @SuppressWarnings("unchecked")
+        var tail = (T) values[tailIndex];
+        if (comparator.compare(tail, value) < 0) {
+          break;
+        }
+        values[tailIndex] = null;
+        size--;
+      }
+      if (size != 0 && positions[head] <= position - values.length) {
+        values[head] = null;
+        head = index(1);
+        size--;
+      }
+      var index = index(size);
+      values[index] = value;
+      positions[index] = position++;
+      size++;
+    }
+
+    long count() {
+      return position;
+    }
+
+    @SuppressWarnings("unchecked")
+    T first() {
+      return (T) values[head];
+    }
+  }
+
+  static void checkWindowSize(int windowSize) {
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("windowSize < 1");
+    }
+  }
+
+  static <T> Gatherer<T, ?, Long> slidingSum(int windowSize, ToLongFunction<? super T> mapper) {
+    checkWindowSize(windowSize);
+    Objects.requireNonNull(mapper);
+    class State {
+      final LongRing ring = new LongRing(windowSize);
+      long sum;
+    }
+    return Gatherer.ofSequential(
+        State::new,
+        Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+          var value = mapper.applyAsLong(element);
+          var ring = state.ring;
+          if (ring.isFull()) {
+            state.sum -= ring.oldest();
+          }
+          ring.add(value);
+          state.sum += value;
+          return !ring.isFull() || downstream.push(state.sum);
+        }),
+        (state, downstream) -> {
+          if (!state.ring.isFull() && state.ring.count() != 0) {
+            downstream.push(state.sum);
+          }
+        }
+    );
+  }
+
+  static <T> Gatherer<T, ?, Double> slidingAverage(int windowSize, ToDoubleFunction<? super T> mapper) {
+    checkWindowSize(windowSize);
+    Objects.requireNonNull(mapper);
+    class State {
+      final double[] ring = new double[windowSize];
+      int next;
+      long count;
+      double sum;
+    }
+    return Gatherer.ofSequential(
+        State::new,
+        Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+          var value = mapper.applyAsDouble(element);
+          if (state.count >= windowSize) {
+            state.sum -= state.ring[state.next];
+          }
+          state.ring[state.next] = value;
+          if (++state.next == windowSize) {
+            state.next = 0;
+          }
+          state.count++;
+          state.sum += value;
+          return state.count < windowSize || downstream.push(state.sum / windowSize);
+        }),
+        (state, downstream) -> {
+          if (state.count < windowSize && state.count != 0) {
+            downstream.push(state.sum / state.count);
+          }
+        }
+    );
+  }
+
+  static <T> Gatherer<T, ?, T> slidingMin(int windowSize, Comparator<? super T> comparator) {
+    checkWindowSize(windowSize);
+    Objects.requireNonNull(comparator);
+    return Gatherer.ofSequential(
+        () -> new MonotonicDeque<T>(windowSize, comparator),
+        Gatherer.Integrator.ofGreedy((deque, element, downstream) -> {
+          deque.add(element);
+          return deque.count() < windowSize || downstream.push(deque.first());
+        }),
+        (deque, downstream) -> {
+          if (deque.count() < windowSize && deque.count() != 0) {
+            downstream.push(deque.first());
+          }
+        }
+    );
+  }
+
+  static <T> Gatherer<T, ?, T> slidingMax(int windowSize, Comparator<? super T> comparator) {
+    Objects.requireNonNull(comparator);
+    return slidingMin(windowSize, comparator.reversed());
+  }
+
+  static <T> Gatherer<T, ?, Long> slidingMinLong(int windowSize, ToLongFunction<? super T> mapper) {
+    return slidingLong(windowSize, mapper, false);
+  }
+
+  static <T> Gatherer<T, ?, Long> slidingMaxLong(int windowSize, ToLongFunction<? super T> mapper) {
+    return slidingLong(windowSize, mapper, true);
+  }
+
+  static <T> Gatherer<T, ?, Long> slidingLong(int windowSize, ToLongFunction<? super T> mapper, boolean max) {
+    checkWindowSize(windowSize);
+    Objects.requireNonNull(mapper);
+    return Gatherer.ofSequential(
+        () -> new LongMonotonicDeque(windowSize, max),
+        Gatherer.Integrator.ofGreedy((deque, element, downstream) -> {
+          deque.add(mapper.applyAsLong(element));
+          return deque.count() < windowSize || downstream.push(deque.first());
+        }),
+        (deque, downstream) -> {
+          if (deque.count() < windowSize && deque.count() != 0) {
+            downstream.push(deque.first());
+          }
+        }
+    );
+  }
+
+  @Benchmark
+  public List<Long> gatherers_windowSliding_sum() {
+    return integers.stream()
+        .gather(Gatherers.windowSliding(windowSize))
+        .map(window -> window.stream().mapToLong(v -> v).sum())
+        .toList();
+  }
+  @Benchmark
+  public List<Long> gatherer_slidingSum() {
+    return integers.stream().gather(slidingSum(windowSize, (Integer v) -> v)).toList();
+  }
+
+  @Benchmark
+  public List<Double> gatherers_windowSliding_average() {
+    return integers.stream()
+        .gather(Gatherers.windowSliding(windowSize))
+        .map(window -> window.stream().mapToInt(v -> v).average().orElseThrow())
+        .toList();
+  }
+  @Benchmark
+  public List<Double> gatherer_slidingAverage() {
+    return integers.stream().gather(slidingAverage(windowSize, (Integer v) -> v)).toList();
+  }
+
+  @Benchmark
+  public List<Integer> gatherers_windowSliding_min() {
+    return integers.stream()
+        .gather(Gatherers.windowSliding(windowSize))
+        .map(Collections::min)
+        .toList();
+  }
+  @Benchmark
+  public List<Integer> gatherer_slidingMin() {
+    return integers.stream().gather(slidingMin(windowSize, Integer::compare)).toList();
+  }
+  @Benchmark
+  public List<Long> gatherer_slidingMinLong() {
+    return integers.stream().gather(slidingMinLong(windowSize, (Integer v) -> v)).toList();
+  }
+}
@@ -0,0 +1,256 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.Gatherer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _37_topK.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class TopKBenchmark {
+
+  @Param({ "10", "1000" })
+  private int k;
+
+  private final List<Integer> integers = new Random(0).ints(1_000_000).boxed().toList();
+
+  record Entry<E>(E element, long position) {}
+
+  static <T> Gatherer<T, ?, T> bottomK(int k, Comparator<? super T> comparator) {
+    if (k < 0) {
+      throw new IllegalArgumentException("k < 0");
+    }
+    Objects.requireNonNull(comparator);
+    Comparator<Entry<T>> ranking = Comparator.<Entry<T>, T>comparing(Entry::element, comparator)
+        .thenComparingLong(Entry::position);
+    class State {
+      final PriorityQueue<Entry<T>> heap = new PriorityQueue<>(ranking.reversed());  // the root is the last kept
+      long count;
+
+      void add(T element, long position) {
+        if (heap.size() < k) {
+          heap.add(new Entry<>(element, position));
+          return;
+        }
+        // on a tie, the element already in the heap comes first in the stream
+        if (k != 0 && comparator.compare(element, heap.peek().element()) < 0) {
+          heap.poll();
+          heap.add(new Entry<>(element, position));
+        }
+      }
+    }
+    return Gatherer.of(
+        State::new,
+        Gatherer.Integrator.ofGreedy((state, element, _) -> {
+          state.add(element, state.count++);
+          return true;
+        }),
+        (s1, s2) -> {
+          for (var entry : s2.heap) {
+            s1.add(entry.element(), s1.count + entry.position());
+          }
+          s1.count += s2.count;
+          return s1;
+        },
+        (state, downstream) -> {
+          var entries = new ArrayList<>(state.heap);
+          entries.sort(ranking);
+          for (var entry : entries) {
+            if (!downstream.push(entry.element())) {
+              return;
+            }
+          }
+        }
+    );
+  }
+
+  static <T> Gatherer<T, ?, T> topK(int k, Comparator<? super T> comparator) {
+    Objects.requireNonNull(comparator);
+    return bottomK(k, comparator.reversed());
+  }
+
+  // a binary heap of (key, position, element), the root is the element ranked last
+  static final class LongKeyHeap<T> {
+    private final boolean reversed;
+    private final long[] keys;
+    private final long[] positions;
+    private final Object[] elements;
+    private int size;
+
+    LongKeyHeap(int capacity, boolean reversed) {
+      this.reversed = reversed;
+      keys = new long[capacity];
+      positions = new long[capacity];
+      elements = new Object[capacity];
+    }
+
+    private boolean before(int index1, int index2) {
+      var key1 = keys[index1];
+      var key2 = keys[index2];
+      if (key1 != key2) {
+        return reversed ? key1 > key2 : key1 < key2;
+      }
+      return positions[index1] < positions[index2];
+    }
+
+    private void swap(int index1, int index2) {
+      var key = keys[index1]; keys[index1] = keys[index2]; keys[index2] = key;
+      var position = positions[index1]; positions[index1] = positions[index2]; positions[index2] = position;
+      var element = elements[index1]; elements[index1] = elements[index2]; elements[index2] = element;
+    }
+
+    private void siftUp(int index) {
+      while (index > 0) {
+        var parent = (index - 1) >>> 1;
+        if (!before(parent, index)) {
+          return;
+        }
+        swap(parent, index);
+        index = parent;
+      }
+    }
+
+    private void siftDown(int index) {
+      for (;;) {
+        var child = (index << 1) + 1;
+        if (child >= size) {
+          return;
+        }
+        if (child + 1 < size && before(child, child + 1)) {
+          child++;
+        }
+        if (!before(index, child)) {
+          return;
+        }
+        swap(index, child);
+        index = child;
+      }
+    }
+
+    void add(long key, long position, T element) {
+      if (size < keys.length) {
+        keys[size] = key;
+        positions[size] = position;
+        elements[size] = element;
+        siftUp(size++);
+        return;
+      }
+      // on a tie, the element already in the heap comes first in the stream
+      if (size != 0 && (reversed ? key > keys[0] : key < keys[0])) {
+        keys[0] = key;
+        positions[0] = position;
+        elements[0] = element;
+        siftDown(0);
+      }
+    }
+
+    void addAll(LongKeyHeap<T> heap, long offset) {
+      for (var i = 0; i < heap.size; i++) {
+        @SuppressWarnings("unchecked")
+        var element = (T) heap.elements[i];
+        add(heap.keys[i], heap.positions[i] + offset, element);
+      }
+    }
+
+    // empties the heap
+    @SuppressWarnings("unchecked")
+    T[] drainSorted() {
+      var result = (T[]) new Object[size];
+      while (size != 0) {
+        result[size - 1] = (T) elements[0];
+        swap(0, --size);
+        elements[size] = null;
+        siftDown(0);
+      }
+      return result;
+    }
+  }
+
+  static <T> Gatherer<T, ?, T> bottomKByLong(int k, ToLongFunction<? super T> keyExtractor) {
+    return kByLong(k, keyExtractor, false);
+  }
+
+  static <T> Gatherer<T, ?, T> topKByLong(int k, ToLongFunction<? super T> keyExtractor) {
+    return kByLong(k, keyExtractor, true);
+  }
+
+  static <T> Gatherer<T, ?, T> kByLong(int k, ToLongFunction<? super T> keyExtractor, boolean reversed) {
+    if (k < 0) {
+      throw new IllegalArgumentException("k < 0");
+    }
+    Objects.requireNonNull(keyExtractor);
+    class State {
+      final LongKeyHeap<T> heap = new LongKeyHeap<>(k, reversed);
+      long count;
+    }
+    return Gatherer.of(
+        State::new,
+        Gatherer.Integrator.ofGreedy((state, element, _) -> {
+          state.heap.add(keyExtractor.applyAsLong(element), state.count++, element);
+          return true;
+        }),
+        (s1, s2) -> {
+          s1.heap.addAll(s2.heap, s1.count);
+          s1.count += s2.count;
+          return s1;
+        },
+        (state, downstream) -> {
+          for (var element : state.heap.drainSorted()) {
+            if (!downstream.push(element)) {
+              return;
+            }
+          }
+        }
+    );
+  }
+
+  @Benchmark
+  public List<Integer> stream_sorted_limit() {
+    return integers.stream().sorted(Comparator.reverseOrder()).limit(k).toList();
+  }
+  @Benchmark
+  public List<Integer> stream_sorted_limit_parallel() {
+    return integers.parallelStream().sorted(Comparator.reverseOrder()).limit(k).toList();
+  }
+
+  @Benchmark
+  public List<Integer> gatherer_topK() {
+    return integers.stream().gather(topK(k, Comparator.<Integer>naturalOrder())).toList();
+  }
+  @Benchmark
+  public List<Integer> gatherer_topK_parallel() {
+    return integers.parallelStream().gather(topK(k, Comparator.<Integer>naturalOrder())).toList();
+  }
+
+  @Benchmark
+  public List<Integer> gatherer_topKByLong() {
+    return integers.stream().gather(topKByLong(k, (Integer v) -> v)).toList();
+  }
+  @Benchmark
+  public List<Integer> gatherer_topKByLong_parallel() {
+    return integers.parallelStream().gather(topKByLong(k, (Integer v) -> v)).toList();
+  }
+}
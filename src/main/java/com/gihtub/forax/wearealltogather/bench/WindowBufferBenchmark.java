@@ -0,0 +1,116 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Gatherer;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _12_windowFixed.java and _27_windowFixed_reuse.java
+// run with -prof gc, and compare gc.alloc.rate.norm (bytes/op), the bytes/op still have to be measured on JDK 25
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class WindowBufferBenchmark {
+
+  private final List<Integer> integers = IntStream.range(0, 100_000).boxed().toList();
+
+  static <T> Gatherer<T, ?, List<T>> windowFixed(int windowSize) {
+    return Gatherer.ofSequential(
+        () -> new Object() { List<T> list = new ArrayList<>(); },
+        Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+          if (state.list.size() == windowSize) {
+            if (!downstream.push(state.list)) {
+              return false;
+            }
+            state.list = new ArrayList<>();
+          }
+          state.list.add(element);
+          return true;
+        }),
+        (state, downstream) -> {
+          if (!state.list.isEmpty()) {
+            downstream.push(state.list);
+          }
+        }
+    );
+  }
+
+  static <T> Gatherer<T, ?, List<T>> windowFixedReused(int windowSize) {
+    class Buffer extends AbstractList<T> implements RandomAccess {
+      private final Object[] elements = new Object[windowSize];
+      private int size;
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public T get(int index) {
+        Objects.checkIndex(index, size);
+        return (T) elements[index];
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+
+      boolean push(Gatherer.Downstream<? super List<T>> downstream) {
+        var result = downstream.push(this);
+        size = 0;
+        return result;
+      }
+    }
+    return Gatherer.ofSequential(
+        Buffer::new,
+        Gatherer.Integrator.ofGreedy((buffer, element, downstream) -> {
+          buffer.elements[buffer.size++] = element;
+          if (buffer.size == windowSize) {
+            return buffer.push(downstream);
+          }
+          return true;
+        }),
+        (buffer, downstream) -> {
+          if (buffer.size != 0) {
+            buffer.push(downstream);
+          }
+          Arrays.fill(buffer.elements, null);
+        }
+    );
+  }
+
+  @Benchmark
+  public int gatherer_windowFixed_2() {
+    return integers.stream().gather(windowFixed(2)).mapToInt(window -> window.get(0)).sum();
+  }
+  @Benchmark
+  public int gatherer_windowFixedReused_2() {
+    return integers.stream().gather(windowFixedReused(2)).mapToInt(window -> window.get(0)).sum();
+  }
+
+  @Benchmark
+  public int gatherer_windowFixed_16() {
+    return integers.stream().gather(windowFixed(16)).mapToInt(window -> window.get(0)).sum();
+  }
+  @Benchmark
+  public int gatherer_windowFixedReused_16() {
+    return integers.stream().gather(windowFixedReused(16)).mapToInt(window -> window.get(0)).sum();
+  }
+}
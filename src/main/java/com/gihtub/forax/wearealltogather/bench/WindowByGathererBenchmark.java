@@ -0,0 +1,175 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Gatherer;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _21_windowByWithCollector.java and _25_windowBy_parallel.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class WindowByGathererBenchmark {
+
+  record Section(String name, List<String> items) {}
+
+  private final List<String> lines = IntStream.range(0, 1_000_000)
+      .mapToObj(i -> i % 100 == 0 ? "header" + i : "item" + i)
+      .toList();
+
+  static <T, A, R, R2> Gatherer<T, ?, R2> windowBySequential(Predicate<? super T> predicate,
+                                                            Collector<? super T, A, ? extends R> collector,
+                                                            BiFunction<? super T, ? super R, ? extends R2> mapper) {
+    var supplier = collector.supplier();
+    var accumulator = collector.accumulator();
+    var finisher = collector.finisher();
+    class State {
+      A container;
+      T element;
+    }
+    return Gatherer.ofSequential(
+        State::new,
+        Gatherer.Integrator.ofGreedy((state, element, downstream) -> {
+          if (predicate.test(element)) {
+            if (state.container != null) {
+              if (!downstream.push(mapper.apply(state.element, finisher.apply(state.container)))) {
+                return false;
+              }
+            }
+            state.container = supplier.get();
+            state.element = element;
+            return true;
+          }
+          if (state.container == null) {
+            throw new IllegalStateException("");
+          }
+          accumulator.accept(state.container, element);
+          return true;
+        }),
+        (state, downstream) -> {
+          if (state.container != null) {
+            downstream.push(mapper.apply(state.element, finisher.apply(state.container)));
+          }
+        }
+    );
+  }
+
+  static <T, A, R, R2> Gatherer<T, ?, R2> windowByParallel(Predicate<? super T> predicate,
+                                                          Collector<? super T, A, ? extends R> collector,
+                                                          BiFunction<? super T, ? super R, ? extends R2> mapper) {
+    Objects.requireNonNull(predicate);
+    var supplier = collector.supplier();
+    var accumulator = collector.accumulator();
+    var combiner = collector.combiner();
+    var finisher = collector.finisher();
+    class State {
+      A orphans;
+      final ArrayList<R2> sections = new ArrayList<>();
+      A container;
+      T element;
+
+      void close() {
+        sections.add(mapper.apply(element, finisher.apply(container)));
+      }
+    }
+    return Gatherer.of(
+        State::new,
+        Gatherer.Integrator.ofGreedy((state, element, _) -> {
+          if (predicate.test(element)) {
+            if (state.container != null) {
+              state.close();
+            }
+            state.container = supplier.get();
+            state.element = element;
+            return true;
+          }
+          if (state.container == null) {
+            if (state.orphans == null) {
+              state.orphans = supplier.get();
+            }
+            accumulator.accept(state.orphans, element);
+            return true;
+          }
+          accumulator.accept(state.container, element);
+          return true;
+        }),
+        (s1, s2) -> {
+          if (s2.orphans != null) {
+            if (s1.container != null) {
+              s1.container = combiner.apply(s1.container, s2.orphans);
+            } else {
+              s1.orphans = s1.orphans == null ? s2.orphans : combiner.apply(s1.orphans, s2.orphans);
+            }
+          }
+          if (s2.container != null) {
+            if (s1.container != null) {
+              s1.close();
+            }
+            s1.sections.addAll(s2.sections);
+            s1.container = s2.container;
+            s1.element = s2.element;
+          }
+          return s1;
+        },
+        (state, downstream) -> {
+          if (state.orphans != null) {
+            throw new IllegalStateException("element before the first header");
+          }
+          for (var section : state.sections) {
+            if (!downstream.push(section)) {
+              return;
+            }
+          }
+          if (state.container != null) {
+            downstream.push(mapper.apply(state.element, finisher.apply(state.container)));
+          }
+        }
+    );
+  }
+
+  @Benchmark
+  public List<Section> gatherer_windowBy_sequential() {
+    return lines.stream()
+        .gather(windowBySequential((String s) -> s.startsWith("header"), Collectors.toList(), Section::new))
+        .toList();
+  }
+  @Benchmark
+  public List<Section> gatherer_windowBy_sequential_parallelStream() {
+    return lines.parallelStream()
+        .gather(windowBySequential((String s) -> s.startsWith("header"), Collectors.toList(), Section::new))
+        .toList();
+  }
+  @Benchmark
+  public List<Section> gatherer_windowByParallel_sequential() {
+    return lines.stream()
+        .gather(windowByParallel((String s) -> s.startsWith("header"), Collectors.toList(), Section::new))
+        .toList();
+  }
+  @Benchmark
+  public List<Section> gatherer_windowByParallel_parallelStream() {
+    return lines.parallelStream()
+        .gather(windowByParallel((String s) -> s.startsWith("header"), Collectors.toList(), Section::new))
+        .toList();
+  }
+}
@@ -0,0 +1,147 @@
+package com.gihtub.forax.wearealltogather.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Gatherer;
+import java.util.stream.Gatherers;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// see _24_windowFixed_parallel.java
+
+@Warmup(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "--enable-preview", "-XX:-TieredCompilation" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("static-method")
+public class WindowFixedGathererBenchmark {
+
+  @Param({ "100000", "10000000" })
+  private int size;
+
+  private List<Integer> integers;
+
+  @Setup
+  public void setup() {
+    integers = IntStream.range(0, size).boxed().toList();
+  }
+
+  record Indexed<T>(long index, T element) {}
+
+  static <T> Stream<Indexed<T>> indexed(List<T> list) {
+    Objects.requireNonNull(list);
+    return IntStream.range(0, list.size()).mapToObj(i -> new Indexed<>(i, list.get(i)));
+  }
+
+  static <T> Gatherer<Indexed<T>, ?, List<T>> windowFixed(int windowSize) {
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("windowSize < 1");
+    }
+    class State {
+      boolean first = true;  // no element seen yet
+      boolean direct;  // the split starts at the position 0, the windows are pushed directly
+      boolean cut;  // a window boundary has been seen
+      ArrayList<T> head = new ArrayList<>();  // the elements before the first boundary
+      ArrayList<List<T>> windows = new ArrayList<>();  // the full windows not pushed yet
+      ArrayList<T> tail = new ArrayList<>(windowSize);  // the elements after the last boundary
+
+      boolean add(List<T> window, Gatherer.Downstream<? super List<T>> downstream) {
+        if (direct) {
+          return downstream.push(window);
+        }
+        windows.add(window);
+        return true;
+      }
+    }
+    return Gatherer.of(
+        State::new,
+        (state, indexed, downstream) -> {
+          var boundary = indexed.index() % windowSize == 0;
+          if (state.first) {
+            state.first = false;
+            state.direct = indexed.index() == 0;
+          }
+          if (!state.cut && !boundary) {
+            state.head.add(indexed.element());
+            return true;
+          }
+          state.cut = true;
+          state.tail.add(indexed.element());
+          if (state.tail.size() == windowSize) {
+            var window = state.tail;
+            state.tail = new ArrayList<>(windowSize);
+            return state.add(window, downstream);
+          }
+          return true;
+        },
+        (s1, s2) -> {
+          if (!s1.cut) {  // no boundary on the left, the head of the left is the beginning of the head of the right
+            s1.head.addAll(s2.head);
+            s2.head = s1.head;
+            s2.first &= s1.first;
+            return s2;
+          }
+          s1.tail.addAll(s2.head);
+          if (s2.cut || s1.tail.size() == windowSize) {  // the window of the tail is complete
+            if (!s1.tail.isEmpty()) {
+              s1.windows.add(s1.tail);
+            }
+            s1.tail = new ArrayList<>(windowSize);
+          }
+          if (s2.cut) {
+            s1.windows.addAll(s2.windows);
+            s1.tail = s2.tail;
+          }
+          return s1;
+        },
+        (state, downstream) -> {
+          if (!state.head.isEmpty() && !downstream.push(state.head)) {  // only if the positions do not start at 0
+            return;
+          }
+          for (var window : state.windows) {
+            if (!downstream.push(window)) {
+              return;
+            }
+          }
+          if (!state.tail.isEmpty()) {
+            downstream.push(state.tail);
+          }
+        }
+    );
+  }
+
+  @Benchmark
+  public long gatherers_windowFixed_sequential() {
+    return integers.stream().map(v -> v * 3).gather(Gatherers.windowFixed(16)).count();
+  }
+  @Benchmark
+  public long gatherers_windowFixed_parallel() {
+    return integers.parallelStream().map(v -> v * 3).gather(Gatherers.windowFixed(16)).count();
+  }
+  @Benchmark
+  public long gatherer_windowFixed_sequential() {
+    return indexed(integers).map(indexed -> new Indexed<>(indexed.index(), indexed.element() * 3))
+        .gather(windowFixed(16)).count();
+  }
+  @Benchmark
+  public long gatherer_windowFixed_parallel() {
+    return indexed(integers).parallel().map(indexed -> new Indexed<>(indexed.index(), indexed.element() * 3))
+        .gather(windowFixed(16)).count();
+  }
+}